@@ -0,0 +1,247 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import processing.core.PVector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/* benchmarks every kind of narrowphase check Collider.colliding() hands off to, using the real collider shapes from the
+ * player, enemies, and walls. each pair is checked once where the shapes overlap and once where they don't - most of
+ * the misses are placed so the bounding boxes overlap but the shapes don't, so the actual shape test runs instead of
+ * the bounding box check rejecting it. build the benchmarks.jar artifact and run it with:
+ *   java -jar benchmarks.jar -prof gc
+ * to get ops/s and the allocation rate for each benchmark.
+ *
+ * JMH won't run benchmarks in the default package, and classes in a package can't see the game's classes (which are
+ * all in the default package), so everything from the game is looked up by name. the collision check itself goes
+ * through a static final MethodHandle, which the JIT inlines like a normal static call. */
+@SuppressWarnings("unused") // keeps my ide happy
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ColliderBenchmark {
+  private static final Class<?> HITBOX_CLASS = findClass("Collider$Hitbox");
+  // Collider.colliding(Hitbox, Hitbox, PVector), with the hitboxes erased to Object so it can be called from here
+  private static final MethodHandle COLLIDING;
+  static {
+    try {
+      COLLIDING = MethodHandles.lookup()
+          .findStatic(findClass("Collider"), "colliding",
+                      MethodType.methodType(boolean.class, HITBOX_CLASS, HITBOX_CLASS, PVector.class))
+          .asType(MethodType.methodType(boolean.class, Object.class, Object.class, PVector.class));
+    }
+    catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static final float BULLET_RADIUS = 8;
+  private static final float CHASER_RADIUS = 34; // roughly the radius of a circle around a chaser
+
+  // reused for every check that returns a translation vector, same as the engine does
+  private final PVector transVec = new PVector();
+
+  // polygon/polygon
+  private Object chaser, playerArm, turretBase, wall;
+  private Object chaserHitsPlayer, chaserMissesPlayer, chaserHitsTurret, chaserMissesTurret;
+  private Object playerHitsWall, playerMissesWall;
+  // circle/polygon and circle/circle
+  private Object circleHitsChaser, circleMissesChaser;
+  private Object enemyCircle, enemyCircleHit, enemyCircleMiss;
+  // line/polygon and point/polygon
+  private Object lineHitsChaser, lineMissesChaser;
+  private Object pointHitsChaser, pointMissesChaser;
+
+  @Setup
+  public void setup() throws ReflectiveOperationException {
+    float[][] chaserPoints = (float[][])findClass("ChaserEnemy").getField("HITBOX_POINTS").get(null);
+    float[][][] playerPoints = (float[][][])findClass("Player").getField("HITBOX_POINTS").get(null);
+    float[][][] turretPoints = (float[][][])findClass("TurretEnemy").getField("HITBOX_POINTS").get(null);
+    Class<?> main = findClass("Main");
+    int wallThickness = main.getField("BORDER_WALL_THICKNESS").getInt(null);
+    int worldHeight = main.getField("WORLD_HEIGHT").getInt(null);
+
+    // the "fixed" shape in each pair - everything else is positioned relative to these
+    chaser = polygon(chaserPoints, 0, 0);
+    playerArm = polygon(playerPoints[0], 0, 0); // the larger of the two arms
+    turretBase = polygon(turretPoints[4], 0, 0);
+    wall = rect(-wallThickness, 0, wallThickness, worldHeight); // the wall along the left edge of the world
+
+    chaserHitsPlayer = polygon(chaserPoints, -20, 0);
+    chaserMissesPlayer = polygon(chaserPoints, 0, 16); // just clears the inside edge of the arm
+    chaserHitsTurret = polygon(chaserPoints, 40, 0);
+    chaserMissesTurret = polygon(chaserPoints, 27, 64); // sitting in the gap next to a diagonal edge
+    playerHitsWall = polygon(playerPoints[0], 20, 500);
+    playerMissesWall = polygon(playerPoints[0], 41, 500); // only the bounding box check runs here
+
+    circleHitsChaser = circle(20, 10, BULLET_RADIUS);
+    circleMissesChaser = circle(20, -27, BULLET_RADIUS); // next to one of the cut corners
+    enemyCircle = circle(0, 0, CHASER_RADIUS);
+    enemyCircleHit = circle(60, 0, CHASER_RADIUS);
+    enemyCircleMiss = circle(70, 0, CHASER_RADIUS);
+
+    // lines are a bullet's movement over one frame
+    lineHitsChaser = line(-40, 0, -10, 0);
+    lineMissesChaser = line(14, -30, 24, -20);
+    pointHitsChaser = point(0, 0);
+    pointMissesChaser = point(17, -24);
+
+    // make sure every case does what it says, so a change to a shape can't quietly turn a hit into a miss
+    expect(chaserHitsPlayer, playerArm, true);
+    expect(chaserMissesPlayer, playerArm, false);
+    expect(chaserHitsTurret, turretBase, true);
+    expect(chaserMissesTurret, turretBase, false);
+    expect(playerHitsWall, wall, true);
+    expect(playerMissesWall, wall, false);
+    expect(circleHitsChaser, chaser, true);
+    expect(circleMissesChaser, chaser, false);
+    expect(enemyCircleHit, enemyCircle, true);
+    expect(enemyCircleMiss, enemyCircle, false);
+    expect(lineHitsChaser, chaser, true);
+    expect(lineMissesChaser, chaser, false);
+    expect(pointHitsChaser, chaser, true);
+    expect(pointMissesChaser, chaser, false);
+  }
+
+  /* polygon/polygon (separating axis theorem) */
+  @Benchmark
+  public boolean polygonPolygonChaserPlayerHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(chaserHitsPlayer, playerArm, transVec);
+  }
+
+  @Benchmark
+  public boolean polygonPolygonChaserPlayerMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(chaserMissesPlayer, playerArm, transVec);
+  }
+
+  @Benchmark
+  public boolean polygonPolygonChaserTurretHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(chaserHitsTurret, turretBase, transVec);
+  }
+
+  @Benchmark
+  public boolean polygonPolygonChaserTurretMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(chaserMissesTurret, turretBase, transVec);
+  }
+
+  @Benchmark
+  public boolean polygonPolygonPlayerWallHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(playerHitsWall, wall, transVec);
+  }
+
+  @Benchmark
+  public boolean polygonPolygonPlayerWallMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(playerMissesWall, wall, transVec);
+  }
+
+  /* circle/polygon */
+  @Benchmark
+  public boolean circlePolygonHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(circleHitsChaser, chaser, transVec);
+  }
+
+  @Benchmark
+  public boolean circlePolygonMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(circleMissesChaser, chaser, transVec);
+  }
+
+  /* circle/circle */
+  @Benchmark
+  public boolean circleCircleHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(enemyCircleHit, enemyCircle, transVec);
+  }
+
+  @Benchmark
+  public boolean circleCircleMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(enemyCircleMiss, enemyCircle, transVec);
+  }
+
+  /* line/polygon */
+  @Benchmark
+  public boolean linePolygonHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(lineHitsChaser, chaser, transVec);
+  }
+
+  @Benchmark
+  public boolean linePolygonMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(lineMissesChaser, chaser, transVec);
+  }
+
+  /* point/polygon */
+  @Benchmark
+  public boolean pointInPolygonHit() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(pointHitsChaser, chaser, transVec);
+  }
+
+  @Benchmark
+  public boolean pointInPolygonMiss() throws Throwable {
+    return (boolean)COLLIDING.invokeExact(pointMissesChaser, chaser, transVec);
+  }
+
+  /* fixture helpers - the hitbox ctors are package-private, so they have to be made accessible first */
+  private static Object polygon(float[][] points, float x, float y) throws ReflectiveOperationException {
+    return newHitbox(new Class<?>[]{float[][].class, float.class, float.class}, points, x, y);
+  }
+
+  private static Object rect(float x, float y, float w, float h) throws ReflectiveOperationException {
+    return newHitbox(new Class<?>[]{float.class, float.class, float.class, float.class}, x, y, w, h);
+  }
+
+  private static Object circle(float x, float y, float r) throws ReflectiveOperationException {
+    return newHitbox(new Class<?>[]{float.class, float.class, float.class}, x, y, r);
+  }
+
+  private static Object line(float x1, float y1, float x2, float y2) throws ReflectiveOperationException {
+    return newHitbox(new Class<?>[]{PVector.class, PVector.class}, new PVector(x1, y1), new PVector(x2, y2));
+  }
+
+  private static Object point(float x, float y) throws ReflectiveOperationException {
+    return newHitbox(new Class<?>[]{float.class, float.class}, x, y);
+  }
+
+  private static Object newHitbox(Class<?>[] paramTypes, Object... args) throws ReflectiveOperationException {
+    Constructor<?> ctor = HITBOX_CLASS.getDeclaredConstructor(paramTypes);
+    ctor.setAccessible(true);
+    return ctor.newInstance(args);
+  }
+
+  private void expect(Object h1, Object h2, boolean colliding) {
+    boolean result;
+    try {
+      result = (boolean)COLLIDING.invokeExact(h1, h2, transVec);
+    }
+    catch (Throwable e) {
+      throw new IllegalStateException("Collision check failed while setting up benchmarks!", e);
+    }
+    if (result != colliding) {
+      throw new IllegalStateException("Benchmark fixture " + (colliding ? "missed" : "hit")
+                                      + " when it shouldn't have!");
+    }
+  }
+
+  private static Class<?> findClass(String name) {
+    try {
+      return Class.forName(name);
+    }
+    catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Couldn't find game class " + name + " - is the game module on the classpath?",
+                                      e);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+import processing.core.PFont;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* loads every asset the game uses up front. wave data and images are loaded on a pool of worker threads, while fonts
+ * and sounds are made on the animation thread, one per frame, since making them touches PApplet and AWT state that
+ * isn't safe to use from other threads. the draw loop shows a loading bar until everything is ready, and after that
+ * nothing ever has to be read or decoded from disk while the game is running. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class AssetManager {
+  /* every asset the game uses - anything not listed here will still work, but gets loaded the first time it's used */
+  public static final String WAVE_DATA_PATH = "waves.json";
+  public static final String[] SPRITE_PATHS = {
+      "sprites/player-4x.png",
+      "sprites/chaser-4x.png",
+      "sprites/turret-base.png",
+      "sprites/hp-icon-2x.png",
+      "sprites/stamina-icon-2x.png"
+  };
+  // each font is loaded once for every size it's used at
+  public static final FontSpec[] FONTS = {
+      new FontSpec(Hud.UAV_OSD_SANS_MONO_PATH, 64),
+      new FontSpec(Hud.UAV_OSD_SANS_MONO_PATH, 48),
+      new FontSpec(Hud.UAV_OSD_SANS_MONO_PATH, 28),
+      new FontSpec(Hud.UAV_OSD_SANS_MONO_PATH, 24),
+      new FontSpec(Hud.UAV_OSD_SANS_MONO_PATH, 20),
+      new FontSpec(Hud.OLNEY_LIGHT_PATH, 16)
+  };
+
+  private static Main app;
+  private static final ConcurrentHashMap<String, PFont> fonts = new ConcurrentHashMap<>();
+  private static final ConcurrentLinkedQueue<Exception> errors = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger numLoaded = new AtomicInteger(0);
+  private static int numAssets = 0;
+  // fonts and sounds left to make, only touched by the animation thread
+  private static final ArrayDeque<Runnable> animationThreadTasks = new ArrayDeque<>();
+  private static volatile WaveSource waveSource;
+
+  /* starts loading everything that can be loaded in the background - this returns immediately, and the rest is loaded
+   * by calling update() every frame. has to be called on the animation thread */
+  public static void startLoading(Main app) {
+    AssetManager.app = app;
+
+    // build a list of everything that can be loaded on other threads
+    ArrayList<Runnable> tasks = new ArrayList<>();
+    // waves are streamed from the file as they're needed, this just counts and checks them
+    tasks.add(() -> waveSource = new StreamingWaveSource(WAVE_DATA_PATH, () -> app.createInput(WAVE_DATA_PATH)));
+    for (String path : SPRITE_PATHS) tasks.add(() -> Sprite.preload(path));
+    // and everything that can't
+    for (String name : SoundManager.getNames()) animationThreadTasks.add(() -> SoundManager.load(app, name));
+    for (FontSpec font : FONTS) {
+      animationThreadTasks.add(() -> fonts.put(font.name, app.createFont(font.path, font.size)));
+    }
+    numAssets = tasks.size() + animationThreadTasks.size();
+
+    // load everything on as many threads as the computer has cores - the threads are daemons so they won't keep the
+    // game open if it's closed while loading
+    ExecutorService workers = Executors.newFixedThreadPool(
+        Math.min(Runtime.getRuntime().availableProcessors(), numAssets),
+        (task) -> {
+          Thread thread = new Thread(task, "asset loader");
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    for (Runnable task : tasks) {
+      workers.execute(() -> {
+        try {
+          task.run();
+        }
+        catch (Exception e) {
+          errors.add(e);
+        }
+        numLoaded.incrementAndGet();
+      });
+    }
+    workers.shutdown(); // the workers will finish the tasks they were given, then stop
+  }
+
+  /* makes the next font or sound - has to be called on the animation thread. only one is made per call, so the
+   * loading bar can still be drawn between them */
+  public static void update() {
+    Runnable task = animationThreadTasks.poll();
+    if (task == null) return;
+    try {
+      task.run();
+    }
+    catch (Exception e) {
+      errors.add(e);
+    }
+    numLoaded.incrementAndGet();
+  }
+
+  /* returns whether everything has finished loading; throws a RuntimeException if anything failed to load */
+  public static boolean isDone() throws RuntimeException {
+    if (!errors.isEmpty()) throw new RuntimeException("Failed to load assets!", errors.peek());
+    return numAssets > 0 && numLoaded.get() == numAssets;
+  }
+
+  /* returns how much has been loaded, from 0 to 1 */
+  public static float getProgress() {
+    return numAssets == 0 ? 0 : (float)numLoaded.get() / numAssets;
+  }
+
+  /* returns a font at a size, loading it right now if it wasn't preloaded. has to be called on the animation thread */
+  public static PFont getFont(String path, int size) {
+    return fonts.computeIfAbsent(fontKey(path, size), (key) -> app.createFont(path, size));
+  }
+
+  /* returns where waves are loaded from, or null if it hasn't loaded yet */
+  public static WaveSource getWaveSource() {
+    return waveSource;
+  }
+
+  private static String fontKey(String path, int size) {
+    return path + "@" + size;
+  }
+
+  /* a font file at one size */
+  public static class FontSpec {
+    public final String path;
+    public final int size;
+    public final String name; // what the font is stored under once it's loaded, see getFont()
+
+    FontSpec(String path, int size) {
+      this.path = path;
+      this.size = size;
+      name = fontKey(path, size);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+import processing.core.PApplet;
+import processing.core.PGraphics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/* everything that never moves - the background grid and static entities like walls - drawn once into a grid of
+ * offscreen images ("chunks") instead of every frame. each frame only draws the chunks the camera can see, which is a
+ * handful of image() calls no matter how much is in them. chunks are only drawn the first time they're seen, and are
+ * redrawn whenever a static entity touching them is added or removed. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class BackgroundLayer {
+  private final PApplet app; // used to create the chunk images
+  private final float originX, originY;
+  private final int chunkSize, cols, rows;
+  private final PGraphics[] chunks; // null until the chunk is first drawn
+  private final boolean[] dirty; // whether each chunk needs to be redrawn before it's displayed
+  private final ArrayList<GameEntity> staticEntities = new ArrayList<>();
+
+  /* ctor, takes the area covered by the layer and the size of each (square) chunk in pixels */
+  BackgroundLayer(PApplet app, float originX, float originY, float width, float height, int chunkSize) {
+    this.app = app;
+    this.originX = originX;
+    this.originY = originY;
+    this.chunkSize = chunkSize;
+    cols = Math.max(1, (int)Math.ceil(width / chunkSize));
+    rows = Math.max(1, (int)Math.ceil(height / chunkSize));
+    chunks = new PGraphics[cols * rows];
+    dirty = new boolean[cols * rows];
+  }
+
+  /* bakes an entity into the layer - it should never move, and shouldn't be drawn anywhere else */
+  public void addStatic(GameEntity ent) {
+    staticEntities.add(ent);
+    markDirty(ent);
+  }
+
+  /* removes a baked entity */
+  public void removeStatic(GameEntity ent) {
+    if (staticEntities.remove(ent)) markDirty(ent);
+  }
+
+  /* draws every chunk the view overlaps */
+  public void render(PGraphics pg, Collider.BoundingRect view) {
+    int minX = chunkX(view.x), minY = chunkY(view.y);
+    int maxX = chunkX(view.x + view.w), maxY = chunkY(view.y + view.h);
+    for (int cy = minY; cy <= maxY; ++cy) {
+      for (int cx = minX; cx <= maxX; ++cx) {
+        int i = cy * cols + cx;
+        if (chunks[i] == null || dirty[i]) drawChunk(cx, cy);
+        pg.image(chunks[i], originX + cx * chunkSize, originY + cy * chunkSize);
+      }
+    }
+  }
+
+  /* returns how many chunks have been drawn so far */
+  public int getNumChunksDrawn() {
+    int numDrawn = 0;
+    for (PGraphics chunk : chunks) {
+      if (chunk != null) ++numDrawn;
+    }
+    return numDrawn;
+  }
+
+  /* redraws a chunk, creating it if it doesn't exist yet */
+  private void drawChunk(int cx, int cy) {
+    int i = cy * cols + cx;
+    if (chunks[i] == null) chunks[i] = app.createGraphics(chunkSize, chunkSize);
+    PGraphics chunk = chunks[i];
+    float chunkX = originX + cx * chunkSize, chunkY = originY + cy * chunkSize;
+
+    chunk.beginDraw();
+    chunk.clear();
+    chunk.translate(-chunkX, -chunkY); // lets everything be drawn in world coordinates
+    if (Main.SHOW_BACKGROUND_GRID) drawGrid(chunk, chunkX, chunkY);
+    Collider.BoundingRect chunkRect = new Collider.BoundingRect(chunkX, chunkY, chunkSize, chunkSize);
+    for (GameEntity ent : staticEntities) {
+      if (!ent.updateBBox() || ent.bbox.rectIntersection(chunkRect)) ent.render(chunk);
+    }
+    chunk.endDraw();
+    dirty[i] = false;
+  }
+
+  /* draws a simple grid to give player movement some visual feedback - only the squares inside the chunk are drawn */
+  private void drawGrid(PGraphics chunk, float chunkX, float chunkY) {
+    int gridSize = Main.BACKGROUND_GRID_SIZE;
+    int minCol = Math.max((int)Math.floor(chunkX / gridSize), 0);
+    int minRow = Math.max((int)Math.floor(chunkY / gridSize), 0);
+    int maxCol = Math.min((int)Math.ceil((chunkX + chunkSize) / gridSize), Main.WORLD_WIDTH / gridSize);
+    int maxRow = Math.min((int)Math.ceil((chunkY + chunkSize) / gridSize), Main.WORLD_HEIGHT / gridSize);
+    chunk.noStroke();
+    for (int col = minCol; col < maxCol; ++col) {
+      for (int row = minRow; row < maxRow; ++row) {
+        chunk.fill((col + row) % 2 == 0 ? Main.BACKGROUND_GRID_COLOR_1 : Main.BACKGROUND_GRID_COLOR_2);
+        chunk.rect(col * gridSize, row * gridSize, gridSize, gridSize);
+      }
+    }
+  }
+
+  /* marks every chunk an entity overlaps as needing to be redrawn */
+  private void markDirty(GameEntity ent) {
+    if (!ent.updateBBox()) {
+      // entities without colliders could be anywhere
+      Arrays.fill(dirty, true);
+      return;
+    }
+    int minX = chunkX(ent.bbox.x), minY = chunkY(ent.bbox.y);
+    int maxX = chunkX(ent.bbox.x + ent.bbox.w), maxY = chunkY(ent.bbox.y + ent.bbox.h);
+    for (int cy = minY; cy <= maxY; ++cy) {
+      for (int cx = minX; cx <= maxX; ++cx) dirty[cy * cols + cx] = true;
+    }
+  }
+
+  /* converts world coordinates to (clamped) chunk coordinates */
+  private int chunkX(float x) {
+    return Math.min(Math.max((int)Math.floor((x - originX) / chunkSize), 0), cols - 1);
+  }
+
+  private int chunkY(float y) {
+    return Math.min(Math.max((int)Math.floor((y - originY) / chunkSize), 0), rows - 1);
+  }
+}
@@ -0,0 +1,215 @@
+import processing.core.PGraphics;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* handles every bullet in the engine. bullets used to be normal entities, but there can be thousands of them and
+ * they're all identical apart from a few numbers, so instead they're stored as parallel arrays of primitives. live
+ * bullets are always packed at the front of the arrays - when one dies, the last live bullet is moved into its slot -
+ * so spawning and removing are O(1). moving bullets and finding what they hit doesn't change anything else, so that
+ * part is split across threads, and only applying damage happens on the main thread. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class BulletSystem {
+  public static final int DEFAULT_CAPACITY = 8192;
+  private static final float BULLET_SIZE = 10;
+  private static final int PLAYER_BULLET_COLOR = Colors.BLACK.getCode();
+  private static final int ENEMY_BULLET_COLOR = Colors.RED.getCode();
+  private static final long WALL_TAG = TagRegistry.mask("wall");
+  private static final long ENEMY_TAG = TagRegistry.mask("enemy");
+  private static final int SWEEP_CHUNK_SIZE = 256; // bullets swept on each thread at a time
+
+  private final Engine engine;
+  private final int capacity;
+  private final float[] x, y, velocityX, velocityY, impactDamage;
+  private final float[] prevX, prevY; // position before the last update, used to interpolate rendering
+  private final boolean[] shotByPlayer; // determines what the bullet damages and if it triggers on-hit effects
+  private final GameEntity[] hitEntity; // whatever each bullet hit during the current update, null if nothing
+  private int count = 0; // number of live bullets
+  private GameEntity player; // the player during the current update
+
+  /* each thread gets its own copies of these so sweeps don't allocate anything */
+  private static final ThreadLocal<Collider.SweepResult> hit = ThreadLocal.withInitial(Collider.SweepResult::new);
+  private static final ThreadLocal<ArrayList<GameEntity>> nearby = ThreadLocal.withInitial(ArrayList::new);
+
+  /* ctor */
+  BulletSystem(Engine engine, int capacity) {
+    this.engine = engine;
+    this.capacity = capacity;
+    x = new float[capacity];
+    y = new float[capacity];
+    prevX = new float[capacity];
+    prevY = new float[capacity];
+    velocityX = new float[capacity];
+    velocityY = new float[capacity];
+    impactDamage = new float[capacity];
+    shotByPlayer = new boolean[capacity];
+    hitEntity = new GameEntity[capacity];
+  }
+
+  BulletSystem(Engine engine) {
+    this(engine, DEFAULT_CAPACITY);
+  }
+
+  /* spawns a bullet, returns false if there wasn't room for it */
+  public boolean spawn(float x, float y, float velocityX, float velocityY, float impactDamage, boolean shotByPlayer) {
+    if (count == capacity) return false;
+    this.x[count] = x;
+    this.y[count] = y;
+    prevX[count] = x;
+    prevY[count] = y;
+    this.velocityX[count] = velocityX;
+    this.velocityY[count] = velocityY;
+    this.impactDamage[count] = impactDamage;
+    this.shotByPlayer[count] = shotByPlayer;
+    ++count;
+    return true;
+  }
+
+  /* moves every bullet and checks for collisions, using the pool to sweep bullets on several threads */
+  public void update(float dt, ForkJoinPool workers) {
+    player = engine.getPlayer();
+    if (count <= SWEEP_CHUNK_SIZE) sweep(0, count, dt);
+    else workers.invoke(new SweepTask(0, count, dt));
+
+    // queue damage one bullet at a time
+    int i = 0;
+    while (i < count) {
+      if (hitEntity[i] == null) ++i;
+      else {
+        applyHit(i);
+        remove(i); // the last bullet was moved into this slot, so it gets checked next
+      }
+    }
+  }
+  public void update(float dt) {
+    update(dt, ForkJoinPool.commonPool());
+  }
+
+  /* moves a range of bullets and finds what each one hit */
+  private void sweep(int start, int end, float dt) {
+    Collider.SweepResult hit = BulletSystem.hit.get();
+    ArrayList<GameEntity> nearby = BulletSystem.nearby.get();
+    for (int i = start; i < end; ++i) hitEntity[i] = sweepBullet(i, dt, hit, nearby);
+  }
+
+  /* moves one bullet and sweeps it along its path, returns whatever it hit first (or null if it didn't hit anything) */
+  private GameEntity sweepBullet(int i, float dt, Collider.SweepResult hit, ArrayList<GameEntity> nearby) {
+    float dx = velocityX[i] * dt, dy = velocityY[i] * dt;
+    float startX = x[i], startY = y[i];
+    prevX[i] = startX;
+    prevY[i] = startY;
+
+    // sweep the bullet along its path against everything it can hit and find whatever it hits first - this means
+    // fast bullets can't skip over things, even at low framerates
+    hit.reset();
+    GameEntity hitEntity = null;
+    long targetTags = (shotByPlayer[i] ? WALL_TAG | ENEMY_TAG : WALL_TAG);
+    nearby.clear();
+    engine.getTaggedInRect(targetTags, Math.min(startX, startX + dx), Math.min(startY, startY + dy),
+                           Math.abs(dx), Math.abs(dy), nearby);
+    //noinspection ForLoopReplaceableByForEach
+    for (int j = 0; j < nearby.size(); ++j) {
+      if (sweepAgainst(nearby.get(j), startX, startY, dx, dy, hit)) hitEntity = nearby.get(j);
+    }
+    if (!shotByPlayer[i] && sweepAgainst(player, startX, startY, dx, dy, hit)) hitEntity = player;
+
+    // stop at whatever was hit first (or move the full distance if nothing was hit)
+    x[i] = startX + dx * hit.time;
+    y[i] = startY + dy * hit.time;
+    return hitEntity;
+  }
+
+  /* damages whatever a bullet hit - walls just stop the bullet. damage is dealt through the engine, so it's applied
+   * after everything else has been updated, and the player's on-hit and on-kill effects are triggered then */
+  private void applyHit(int i) {
+    GameEntity target = hitEntity[i];
+    if (target.hasTag(WALL_TAG)) return;
+    engine.damage(target, impactDamage[i], shotByPlayer[i] ? player : null);
+  }
+
+  /* splits a range of bullets in half until each piece is small enough to sweep on one thread */
+  private class SweepTask extends RecursiveAction {
+    private final int start, end;
+    private final float dt;
+
+    SweepTask(int start, int end, float dt) {
+      this.start = start;
+      this.end = end;
+      this.dt = dt;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= SWEEP_CHUNK_SIZE) {
+        sweep(start, end, dt);
+        return;
+      }
+      int middle = (start + end) >>> 1;
+      invokeAll(new SweepTask(start, middle, dt), new SweepTask(middle, end, dt));
+    }
+  }
+
+  /* sweeps a bullet against all of an entity's colliders, returns true if it hit one of them before anything else */
+  private boolean sweepAgainst(GameEntity ent, float startX, float startY, float dx, float dy,
+                               Collider.SweepResult hit) {
+    if (ent == null || ent.colliders == null) return false;
+    boolean hitThis = false;
+    for (Collider.Hitbox collider : ent.colliders) {
+      if (Collider.sweepPoint(startX, startY, dx, dy, collider, hit)) hitThis = true;
+    }
+    return hitThis;
+  }
+
+  /* removes a bullet by moving the last live bullet into its slot */
+  private void remove(int i) {
+    int last = --count;
+    x[i] = x[last];
+    y[i] = y[last];
+    prevX[i] = prevX[last];
+    prevY[i] = prevY[last];
+    velocityX[i] = velocityX[last];
+    velocityY[i] = velocityY[last];
+    impactDamage[i] = impactDamage[last];
+    shotByPlayer[i] = shotByPlayer[last];
+    hitEntity[i] = hitEntity[last];
+    hitEntity[last] = null; // don't keep dead entities around
+  }
+
+  /* draws every bullet inside the view to the canvas. interpolation is how far between the previous and current
+   * positions to draw them, from 0 to 1 */
+  public void render(PGraphics pg, float interpolation, Collider.BoundingRect view) {
+    float minX = view.x - BULLET_SIZE, minY = view.y - BULLET_SIZE;
+    float maxX = view.x + view.w + BULLET_SIZE, maxY = view.y + view.h + BULLET_SIZE;
+    pg.noStroke();
+    // draw each color in its own pass so fill() is only called twice
+    pg.fill(PLAYER_BULLET_COLOR);
+    renderPass(pg, interpolation, true, minX, minY, maxX, maxY);
+    pg.fill(ENEMY_BULLET_COLOR);
+    renderPass(pg, interpolation, false, minX, minY, maxX, maxY);
+  }
+
+  private void renderPass(PGraphics pg, float interpolation, boolean playerBullets, float minX, float minY, float maxX,
+                          float maxY) {
+    for (int i = 0; i < count; ++i) {
+      if (shotByPlayer[i] != playerBullets) continue;
+      float drawX = prevX[i] + (x[i] - prevX[i]) * interpolation, drawY = prevY[i] + (y[i] - prevY[i]) * interpolation;
+      if (drawX < minX || drawX > maxX || drawY < minY || drawY > maxY) continue;
+      pg.ellipse(drawX, drawY, BULLET_SIZE, BULLET_SIZE);
+    }
+  }
+
+  /* removes every bullet */
+  public void clear() {
+    count = 0;
+  }
+
+  /* returns the number of live bullets */
+  public int getCount() {
+    return count;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+}
@@ -1,6 +1,6 @@
 import processing.core.PVector;
 
-import java.util.Objects;
+import java.util.ArrayList;
 
 import static java.lang.Math.*;
 
@@ -13,24 +13,28 @@ public class ChaserEnemy extends EnemySuper {
   private static final float MOVE_SPEED = 600;  // pixels per second
   private static final float DAMAGE_TO_PLAYER = 30; // dealt when the enemy hits the playerRef.get()
   private static final int MAX_HEALTH = 20;
+  private static final long WALL_TAG = TagRegistry.mask("wall");
+  // collider shape, relative to the enemy's position
+  public static final float[][] HITBOX_POINTS = {
+      {6, -27},
+      {20, -3},
+      {20, 19},
+      {8, 27},
+      {-8, 27},
+      {-20, 19},
+      {-20, -3},
+      {-6, -27}
+  };
   private float angle, targetAngle;
+  private final PVector pathDirection = new PVector(); // written by the flow field during think()
+  private final ArrayList<GameEntity> nearbyWalls = new ArrayList<>(); // reused so wall checks don't make garbage
 
   /* ctor */
   ChaserEnemy(PVector position) {
     super("chaser");
-    currentHealth = MAX_HEALTH;
     this.position = position.copy();
     // initialize collider
-    colliders = new Collider.Hitbox[]{new Collider.Hitbox(new float[][]{
-        {6, -27},
-        {20, -3},
-        {20, 19},
-        {8, 27},
-        {-8, 27},
-        {-20, 19},
-        {-20, -3},
-        {-6, -27}
-    }, position)};
+    colliders = new Collider.Hitbox[]{new Collider.Hitbox(HITBOX_POINTS, position)};
     // setup sprite
     sprite = new Sprite("sprites/chaser-4x.png")
         .setDisplayAnchor(Sprite.DisplayAnchor.CENTER)
@@ -39,20 +43,47 @@ public class ChaserEnemy extends EnemySuper {
         .setAngleOffset(PI / 2)
         .setScale(0.5);
 
-    // orient to point directly at the player
-    targetAngle = (float)(atan2(Objects.requireNonNull(Main.player.get()).position.y - position.y,
-                                Objects.requireNonNull(Main.player.get()).position.x - position.x));
-    angle = (targetAngle % TWO_PI + TWO_PI) % TWO_PI;
+    spawnAt(position);
+  }
+
+  /* resets everything that changes while the enemy is alive - used by the ctor and when the enemy is reused */
+  private void spawnAt(PVector position) {
+    currentHealth = MAX_HEALTH;
+    this.position.set(position);
+    setColliderPos(position);
+    sprite.setPos(position);
+  }
+
+  /* orients to point directly at the engine's player (the enemy isn't in an engine yet when it's spawned) */
+  @Override
+  public void runOnAdd() {
+    GameEntity player = engine.getPlayer();
+    if (player != null) {
+      targetAngle = (float)(atan2(player.position.y - position.y, player.position.x - position.x));
+      angle = (targetAngle % TWO_PI + TWO_PI) % TWO_PI;
+    }
     setColliderAngle((float)(angle + PI / 2));
     sprite.setAngle(angle);
   }
 
-  /* updates everything */
   @Override
-  public void update(float dt) {
-    // find the angle to the playerRef.get() and add half a rotation so the enemy rotates toward the playerRef.get()
-    targetAngle = (float)(atan2(Objects.requireNonNull(Main.player.get()).position.y - position.y,
-                                Objects.requireNonNull(Main.player.get()).position.x - position.x) + PI);
+  public void runOnReuse(PVector position) {
+    spawnAt(position);
+  }
+
+  /* steers and moves - this runs in parallel with other entities */
+  @Override
+  public void think(float dt) {
+    // follow the flow field around walls, or head straight for the player if it's close or there's no path - half a
+    // rotation is added so the enemy rotates toward the target direction
+    PVector playerPos = engine.getPlayerPosition();
+    FlowField flowField = engine.getFlowField();
+    if (flowField != null && flowField.getDirection(position.x, position.y, pathDirection)) {
+      targetAngle = (float)(atan2(pathDirection.y, pathDirection.x) + PI);
+    }
+    else {
+      targetAngle = (float)(atan2(playerPos.y - position.y, playerPos.x - position.x) + PI);
+    }
 
     // clamp our angle and the target angle to within a single rotation to prevent spinning infinitely - two mod
     // operations are required here to make sure the angles are always positive
@@ -85,19 +116,28 @@ public class ChaserEnemy extends EnemySuper {
     position.add(moveStep);
     setColliderPos(position);
     setColliderAngle((float)(angle + PI / 2));
+    updateBBox();
+  }
 
+  /* checks for collisions */
+  @Override
+  public void update(float dt) {
     // check for collisions with walls
-    for (GameEntity wall : engine.getTagged("wall")) {
-      if (colliding(wall)) {
-        markForDelete = true;
+    nearbyWalls.clear();
+    engine.getTaggedInRect(WALL_TAG, bbox, nearbyWalls);
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < nearbyWalls.size(); ++i) {
+      if (colliding(nearbyWalls.get(i))) {
+        engine.despawn(this);
         return;
       }
     }
 
     // check for collisions with the playerRef.get()
-    if (colliding(Main.player.get())) {
-      Objects.requireNonNull(Main.player.get()).damage(DAMAGE_TO_PLAYER);
-      markForDelete = true;
+    GameEntity player = engine.getPlayer();
+    if (player != null && colliding(player)) {
+      engine.damage(player, DAMAGE_TO_PLAYER, this);
+      engine.despawn(this);
       return;
     }
 
@@ -108,6 +148,7 @@ public class ChaserEnemy extends EnemySuper {
 
   @Override
   public void runOnDeath() {
-    EnemyManager.EnemyType.CHASER.removeEnemy();
+    if (enemyManager != null) enemyManager.removeEnemy(EnemyManager.EnemyType.CHASER);
+    enemyManager = null;
   }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ public class Collider {
    * vector is stored in transVec (trans rights!) if it isn't null (unless the collision involves a point or
    * a line, in which case transVec is always (0, 0)). */
   public static boolean colliding(Hitbox h1, Hitbox h2, PVector transVec) {
+    if (Profiler.ENABLED) Profiler.countCollisionTest();
     // this is messy as hell, but it's the best way I can think of to do it :/
     Shape s1 = h1.shape, s2 = h2.shape;
     if (s1 == Shape.POINT && s2 == Shape.POINT) {
@@ -81,47 +82,57 @@ public class Collider {
     // rule out a lot of polygons that definitely don't overlap with this one.
     if (!poly1.bbox.rectIntersection(poly2.bbox)) return false;
 
-    // find the edges of both polygons and merge them into a single array
-    PVector[] poly1Edges = getEdges(poly1);
-    PVector[] poly2Edges = getEdges(poly2);
-    PVector[] allEdges = new PVector[poly1Edges.length + poly2Edges.length];
-    System.arraycopy(poly1Edges, 0, allEdges, 0, poly1Edges.length);
-    System.arraycopy(poly2Edges, 0, allEdges, poly1Edges.length, poly2Edges.length);
-
     // used for constructing the MTV - the "minimum translation vector", not the tv station
     float mtvLength = Float.POSITIVE_INFINITY;
-    PVector mtvAxis = new PVector(0, 0);
-
-    // build all axes (axes? axises?) and project both polygons onto them
-    for (PVector edge : allEdges) {
-      float edgeLength = edge.mag();
-
-      // create an axis that is perpendicular to the edge, and normalized (it has a length of 1)
-      PVector axis = new PVector(
-          -edge.y / edgeLength,
-          edge.x / edgeLength
-      );
+    float mtvX = 0, mtvY = 0;
+
+    // project both polygons onto every axis from both polygons. the axes (and each polygon's projection onto its own
+    // axes) are cached by setAngle(), so they don't need to be recalculated here unless the polygon rotates
+    int numAxes1 = poly1.points.length;
+    int numAxes = numAxes1 + poly2.points.length;
+    for (int i = 0; i < numAxes; ++i) {
+      // each axis belongs to one polygon - that polygon's projection is cached, and the other one is projected here
+      Hitbox owner = (i < numAxes1 ? poly1 : poly2), other = (i < numAxes1 ? poly2 : poly1);
+      int axisIndex = (i < numAxes1 ? i : i - numAxes1);
+      float axisX = owner.axesX[axisIndex], axisY = owner.axesY[axisIndex];
+
+      // a polygon's projection onto its own axis only changes by the projection of its position
+      float offset = owner.position.x * axisX + owner.position.y * axisY;
+      float ownerMin = owner.axisMin[axisIndex] + offset, ownerMax = owner.axisMax[axisIndex] + offset;
+
+      // this is projectOntoAxis(), but without creating an array
+      float otherMin = Float.POSITIVE_INFINITY, otherMax = Float.NEGATIVE_INFINITY;
+      for (PVector p : other.points) {
+        float projection = p.x * axisX + p.y * axisY;
+        if (projection < otherMin) otherMin = projection;
+        if (projection > otherMax) otherMax = projection;
+      }
 
-      // project both polygons onto the axis
-      float[] thisProj = projectOntoAxis(poly1, axis);
-      float[] otherProj = projectOntoAxis(poly2, axis);
+      float min1 = (owner == poly1 ? ownerMin : otherMin), max1 = (owner == poly1 ? ownerMax : otherMax);
+      float min2 = (owner == poly1 ? otherMin : ownerMin), max2 = (owner == poly1 ? otherMax : ownerMax);
 
       // polygons are only overlapping if *all* their projections overlap, so we can immediately
       // return if we find a projection where they don't overlap (this is why SAT is so fast)
-      float overlap = intervalDistance(thisProj, otherProj);
+      float overlap = (min1 < min2 ? min2 - max1 : min1 - max2); // same as intervalDistance()
       if (overlap > 0) return false;
       else {
         // update the MTV if this is the smallest overlap found so far
-        if (abs(overlap) < mtvLength) {
-          mtvLength = abs(overlap);
-          if (thisProj[0] < otherProj[0]) mtvAxis.set(-axis.x, -axis.y);
-          else mtvAxis.set(axis);
+        if (-overlap < mtvLength) {
+          mtvLength = -overlap;
+          if (min1 < min2) {
+            mtvX = -axisX;
+            mtvY = -axisY;
+          }
+          else {
+            mtvX = axisX;
+            mtvY = axisY;
+          }
         }
       }
     }
 
     // set transVec to the mtv if it isn't null
-    if (transVec != null) transVec.set(PVector.mult(mtvAxis, mtvLength));
+    if (transVec != null) transVec.set(mtvX * mtvLength, mtvY * mtvLength);
     return true;
   }
 
@@ -192,6 +203,11 @@ public class Collider {
    * and extends to infinity, then counts how many times it crosses an edge of
    * the polygon. If that number is odd, the point is inside the polygon. **/
   public static boolean pointInPolygon(Hitbox point, Hitbox polygon, PVector transVec) {
+    if (transVec != null) transVec.set(0, 0);
+    return pointInPolygon(point.position.x, point.position.y, polygon);
+  }
+  // overload that takes raw coordinates instead of a point hitbox
+  public static boolean pointInPolygon(float x, float y, Hitbox polygon) {
     // ray-casting algorithm based on
     // https://wrf.ecse.rpi.edu/Research/Short_Notes/pnpoly.html
     boolean inside = false;
@@ -199,13 +215,10 @@ public class Collider {
       float xi = polygon.points[i].x, yi = polygon.points[i].y;
       float xj = polygon.points[j].x, yj = polygon.points[j].y ;
 
-      if (((yi > point.position.y) != (yj > point.position.y)) &&
-          (point.position.x < (xj - xi) * (point.position.y - yi) / (yj - yi) + xi)) {
+      if (((yi > y) != (yj > y)) && (x < (xj - xi) * (y - yi) / (yj - yi) + xi)) {
         inside = !inside;
       }
     }
-
-    if (transVec != null) transVec.set(0, 0);
     return inside;
   }
 
@@ -222,6 +235,240 @@ public class Collider {
     return (int)p1.position.x == (int)p2.position.x && (int)p1.position.y == (int)p2.position.y;
   }
 
+  /* swept collision detection - instead of checking whether two things overlap *right now*, these check whether
+   * something moving by (dx, dy) will hit a (stationary) target at any point during that movement. This stops fast
+   * things like bullets from skipping straight through whatever they should have hit. Each function only updates
+   * result if the hit happens earlier than the time already stored in it, so running one result through every
+   * possible target finds whatever gets hit first. They return true if the result was updated. */
+  public static boolean sweep(Hitbox moving, float dx, float dy, Hitbox target, SweepResult result) {
+    if (moving.shape == Shape.POINT) {
+      return sweepPoint(moving.position.x, moving.position.y, dx, dy, target, result);
+    }
+    else if (moving.shape == Shape.CIRCLE) {
+      return sweepCircle(moving.position.x, moving.position.y, moving.radius, dx, dy, target, result);
+    }
+    else if (moving.shape == Shape.POLYGON && target.shape == Shape.POLYGON) {
+      return sweepPolygon(moving, dx, dy, target, result);
+    }
+    return false; // lines (and polygons against anything but polygons) aren't supported
+  }
+
+  // sweeps a point against a polygon or circle
+  public static boolean sweepPoint(float x, float y, float dx, float dy, Hitbox target, SweepResult result) {
+    if (Profiler.ENABLED) Profiler.countCollisionTest();
+    if (target.shape == Shape.CIRCLE) {
+      return rayInCircle(x, y, dx, dy, target.position.x, target.position.y, target.radius, result);
+    }
+    if (target.shape != Shape.POLYGON) return false;
+
+    // the bounding box check works the same as it does for normal collisions
+    if (!target.bbox.rectIntersection(min(x, x + dx), min(y, y + dy), abs(dx), abs(dy))
+        && !target.bbox.pointIntersection(x, y)) return false;
+
+    // a point that starts inside the polygon hits it immediately
+    if (pointInPolygon(x, y, target)) return setStartingHit(dx, dy, result);
+
+    boolean hit = false;
+    for (int i = 0, j = target.points.length - 1; i < target.points.length; j = i++) {
+      PVector a = target.points[j], b = target.points[i];
+      hit |= rayInSegment(x, y, dx, dy, a.x, a.y, b.x, b.y, result);
+    }
+    return hit;
+  }
+
+  // sweeps a circle against a polygon or another circle
+  public static boolean sweepCircle(float x, float y, float r, float dx, float dy, Hitbox target,
+                                    SweepResult result) {
+    if (Profiler.ENABLED) Profiler.countCollisionTest();
+    if (target.shape == Shape.CIRCLE) {
+      // a moving circle hits another circle when its center hits a circle with both of their radii
+      return rayInCircle(x, y, dx, dy, target.position.x, target.position.y, r + target.radius, result);
+    }
+    if (target.shape != Shape.POLYGON) return false;
+
+    if (!target.bbox.rectIntersection(min(x, x + dx) - r, min(y, y + dy) - r, abs(dx) + r * 2, abs(dy) + r * 2)) {
+      return false;
+    }
+
+    // check if the circle is already overlapping the polygon
+    if (pointInPolygon(x, y, target)) return setStartingHit(dx, dy, result);
+    for (int i = 0, j = target.points.length - 1; i < target.points.length; j = i++) {
+      PVector a = target.points[j], b = target.points[i];
+      float edgeX = b.x - a.x, edgeY = b.y - a.y;
+      float t = PApplet.constrain(((x - a.x) * edgeX + (y - a.y) * edgeY) / (edgeX * edgeX + edgeY * edgeY), 0, 1);
+      float closestX = a.x + edgeX * t - x, closestY = a.y + edgeY * t - y;
+      if (closestX * closestX + closestY * closestY < r * r) return setStartingHit(dx, dy, result);
+    }
+
+    // the circle's center hits the polygon's outline pushed out by the radius, which is made of each edge moved
+    // outward by the radius and a circle around each vertex
+    boolean hit = false;
+    for (int i = 0, j = target.points.length - 1; i < target.points.length; j = i++) {
+      PVector a = target.points[j], b = target.points[i];
+      float edgeX = b.x - a.x, edgeY = b.y - a.y;
+      float edgeLength = (float)sqrt(edgeX * edgeX + edgeY * edgeY);
+      // push the edge toward the circle - edges facing away from it can't be hit first anyway
+      float normalX = -edgeY / edgeLength, normalY = edgeX / edgeLength;
+      if (normalX * dx + normalY * dy > 0) {
+        normalX = -normalX;
+        normalY = -normalY;
+      }
+      hit |= rayInSegment(x, y, dx, dy, a.x + normalX * r, a.y + normalY * r, b.x + normalX * r, b.y + normalY * r,
+                          result);
+      hit |= rayInCircle(x, y, dx, dy, a.x, a.y, r, result);
+    }
+    return hit;
+  }
+
+  // sweeps a polygon against another polygon. this is SAT again, but instead of checking whether the projections
+  // overlap, it finds when they start and stop overlapping on each axis - the polygons only touch while they overlap
+  // on *every* axis, so they first touch at the latest start time (as long as that's before the earliest stop time)
+  public static boolean sweepPolygon(Hitbox moving, float dx, float dy, Hitbox target, SweepResult result) {
+    if (Profiler.ENABLED) Profiler.countCollisionTest();
+    if (!target.bbox.rectIntersection(moving.bbox.x + min(dx, 0), moving.bbox.y + min(dy, 0),
+                                      moving.bbox.w + abs(dx), moving.bbox.h + abs(dy))) return false;
+
+    float firstTime = 0, lastTime = 1;
+    float normalX = 0, normalY = 0;
+    int numAxes1 = moving.points.length;
+    int numAxes = numAxes1 + target.points.length;
+    for (int i = 0; i < numAxes; ++i) {
+      Hitbox owner = (i < numAxes1 ? moving : target);
+      int axisIndex = (i < numAxes1 ? i : i - numAxes1);
+      float axisX = owner.axesX[axisIndex], axisY = owner.axesY[axisIndex];
+
+      float min1 = Float.POSITIVE_INFINITY, max1 = Float.NEGATIVE_INFINITY;
+      for (PVector p : moving.points) {
+        float projection = p.x * axisX + p.y * axisY;
+        if (projection < min1) min1 = projection;
+        if (projection > max1) max1 = projection;
+      }
+      float min2 = Float.POSITIVE_INFINITY, max2 = Float.NEGATIVE_INFINITY;
+      for (PVector p : target.points) {
+        float projection = p.x * axisX + p.y * axisY;
+        if (projection < min2) min2 = projection;
+        if (projection > max2) max2 = projection;
+      }
+      float speed = dx * axisX + dy * axisY; // how fast the moving polygon's projection moves along the axis
+
+      float enterTime, exitTime;
+      if (max1 < min2) {
+        // the moving polygon is "below" the target on this axis, so it has to move "up" to hit it
+        if (speed <= 0) return false;
+        enterTime = (min2 - max1) / speed;
+        exitTime = (max2 - min1) / speed;
+        if (enterTime > firstTime) {
+          normalX = -axisX;
+          normalY = -axisY;
+        }
+      }
+      else if (max2 < min1) {
+        // same thing, but the moving polygon is "above" the target
+        if (speed >= 0) return false;
+        enterTime = (max2 - min1) / speed;
+        exitTime = (min2 - max1) / speed;
+        if (enterTime > firstTime) {
+          normalX = axisX;
+          normalY = axisY;
+        }
+      }
+      else {
+        // already overlapping on this axis
+        enterTime = 0;
+        if (speed > 0) exitTime = (max2 - min1) / speed;
+        else if (speed < 0) exitTime = (min2 - max1) / speed;
+        else exitTime = Float.POSITIVE_INFINITY;
+      }
+
+      if (enterTime > firstTime) firstTime = enterTime;
+      if (exitTime < lastTime) lastTime = exitTime;
+      // if the polygons stop overlapping on one axis before they start overlapping on another, they never touch
+      if (firstTime > lastTime) return false;
+    }
+
+    if (firstTime >= result.time) return false;
+    // if firstTime is still 0 then the polygons were already overlapping
+    if (normalX == 0 && normalY == 0) return setStartingHit(dx, dy, result);
+    result.time = firstTime;
+    result.normal.set(normalX, normalY);
+    return true;
+  }
+
+  // finds where a ray (a line segment, really) from (x, y) to (x + dx, y + dy) crosses another line segment
+  private static boolean rayInSegment(float x, float y, float dx, float dy, float ax, float ay, float bx, float by,
+                                      SweepResult result) {
+    float edgeX = bx - ax, edgeY = by - ay;
+    float denominator = dx * edgeY - dy * edgeX;
+    if (denominator == 0) return false; // parallel lines never cross
+
+    // t is how far along the ray the lines cross, and u is how far along the segment they cross
+    float t = ((ax - x) * edgeY - (ay - y) * edgeX) / denominator;
+    float u = ((ax - x) * dy - (ay - y) * dx) / denominator;
+    if (t < 0 || t >= result.time || u < 0 || u > 1) return false;
+
+    // the normal is perpendicular to the segment, and points back toward the start of the ray
+    float edgeLength = (float)sqrt(edgeX * edgeX + edgeY * edgeY);
+    float normalX = -edgeY / edgeLength, normalY = edgeX / edgeLength;
+    if (normalX * dx + normalY * dy > 0) {
+      normalX = -normalX;
+      normalY = -normalY;
+    }
+    result.time = t;
+    result.normal.set(normalX, normalY);
+    return true;
+  }
+
+  // finds where a ray from (x, y) to (x + dx, y + dy) first hits a circle
+  private static boolean rayInCircle(float x, float y, float dx, float dy, float cx, float cy, float r,
+                                     SweepResult result) {
+    // solve the quadratic for where the ray is exactly r away from the circle's center
+    float fx = x - cx, fy = y - cy;
+    float c = fx * fx + fy * fy - r * r;
+    if (c < 0) return setStartingHit(dx, dy, result); // the ray starts inside the circle
+    float a = dx * dx + dy * dy;
+    if (a == 0) return false;
+    float b = 2 * (fx * dx + fy * dy);
+    float discriminant = b * b - 4 * a * c;
+    if (discriminant < 0) return false;
+
+    float t = (float)((-b - sqrt(discriminant)) / (2 * a));
+    if (t < 0 || t >= result.time) return false;
+    result.time = t;
+    result.normal.set((fx + dx * t) / r, (fy + dy * t) / r);
+    return true;
+  }
+
+  // used when something is already overlapping its target before it moves - the hit happens immediately, and the
+  // normal just points back the way it came
+  private static boolean setStartingHit(float dx, float dy, SweepResult result) {
+    if (result.time == 0) return false;
+    result.time = 0;
+    float length = (float)sqrt(dx * dx + dy * dy);
+    if (length == 0) result.normal.set(0, 0);
+    else result.normal.set(-dx / length, -dy / length);
+    return true;
+  }
+
+  /* stores the result of a swept collision. time is how far through the movement the first hit happened, from 0
+   * (right at the start) to 1 (at the very end, which means nothing was hit), and normal is the direction the surface
+   * that was hit is facing. */
+  public static class SweepResult {
+    public float time = 1;
+    public final PVector normal = new PVector(0, 0);
+
+    // resets the result so it can be used for another sweep
+    public SweepResult reset() {
+      time = 1;
+      normal.set(0, 0);
+      return this;
+    }
+
+    // returns whether anything was hit
+    public boolean hit() {
+      return time < 1;
+    }
+  }
+
   /* unified class that handles all collisions and can be any shape */
   public static class Hitbox {
     public final Shape shape;
@@ -229,12 +476,16 @@ public class Collider {
     public float radius, radiusSquared;
     public BoundingRect bbox, rotatedBBox;
     public PVector[] points, absolutePoints, rotatedPoints;
+    public float[] axesX, axesY; // normalized edge normals for polygons, used by SAT
+    public float[] axisMin, axisMax; // the unmoved polygon's projection onto each of its own axes
+    private float angle = 0; // used to skip setAngle() when the angle hasn't changed
     public float[][] pointsAsPolar;
 
     // point ctor
     Hitbox(float x, float y) {
       shape = Shape.POINT;
       position = new PVector(x, y);
+      bbox = new BoundingRect(x, y, 0, 0);
     }
 
     // circle ctor
@@ -268,6 +519,8 @@ public class Collider {
       shape = Shape.LINE;
       this.start = start;
       this.end = end;
+      bbox = new BoundingRect(0, 0, 0, 0);
+      getBBox();
     }
 
     // overloads that take PVectors
@@ -322,6 +575,23 @@ public class Collider {
       pg.popStyle();
     }
 
+    // returns the bounding box of the hitbox. points and lines can be moved without going through setPos() (bullets
+    // set their line's endpoints directly), so their boxes are recalculated here instead of being kept up to date
+    public BoundingRect getBBox() {
+      switch (shape) {
+        case POINT:
+          bbox.x = position.x;
+          bbox.y = position.y;
+          break;
+        case LINE:
+          bbox.x = min(start.x, end.x);
+          bbox.y = min(start.y, end.y);
+          bbox.w = abs(end.x - start.x);
+          bbox.h = abs(end.y - start.y);
+      }
+      return bbox;
+    }
+
     // sets the hitbox's position relative to the origin - if the hitbox is a line, the start point (the first point
     // in to the ctor) will be the moved to the new position
     public void setPos(float x, float y) {
@@ -368,6 +638,8 @@ public class Collider {
           bbox.y += y;
           break;
         case POLYGON:
+          position.x += x;
+          position.y += y;
           for (PVector p : points) {
             p.x += x;
             p.y += y;
@@ -390,17 +662,26 @@ public class Collider {
 
     // rotates a polygon collider to an angle in radians; has no effect on other shapes
     public void setAngle(float angle) {
-      if (shape != Shape.POLYGON) return;
+      // most hitboxes (turrets, walls) never rotate, so skip everything if nothing would change
+      if (shape != Shape.POLYGON || angle == this.angle) return;
+      this.angle = angle;
+
+      // rotating every point by the same angle only needs one sin and cos
+      float cosAngle = (float)cos(angle), sinAngle = (float)sin(angle);
       for (int i = 0; i < rotatedPoints.length; ++i) {
-        rotatedPoints[i].set(
-            (float)cos(angle + pointsAsPolar[i][0]) * pointsAsPolar[i][1],
-            (float)sin(angle + pointsAsPolar[i][0]) * pointsAsPolar[i][1]
-        );
+        PVector p = absolutePoints[i];
+        rotatedPoints[i].set(p.x * cosAngle - p.y * sinAngle, p.x * sinAngle + p.y * cosAngle);
       }
-      rotatedBBox = Collider.findBBox(this);
+      Collider.findBBox(this, rotatedBBox);
+      updateAxes(this);
       setPos(position.x, position.y);
     }
 
+    // returns the angle the hitbox was last rotated to
+    public float getAngle() {
+      return angle;
+    }
+
     // used to overload the polygon ctor
     private void init(float[][] pts) throws IllegalArgumentException {
       // throw an exception if the polygon has less than three points
@@ -412,6 +693,10 @@ public class Collider {
       rotatedPoints = new PVector[pts.length];
       points = new PVector[pts.length];
       pointsAsPolar = new float[points.length][];
+      axesX = new float[pts.length];
+      axesY = new float[pts.length];
+      axisMin = new float[pts.length];
+      axisMax = new float[pts.length];
       for (int i = 0; i < pts.length; ++i) {
         absolutePoints[i] = new PVector(pts[i][0], pts[i][1]);
         rotatedPoints[i] = new PVector(pts[i][0], pts[i][1]);
@@ -424,6 +709,7 @@ public class Collider {
 
       rotatedBBox = Collider.findBBox(this);
       bbox = new BoundingRect(rotatedBBox);
+      updateAxes(this);
     }
   }
   // a bounding rectangle, used to do polygon and circle collisions
@@ -443,6 +729,25 @@ public class Collider {
       this(other.x, other.y, other.w, other.h);
     }
 
+    // sets every value at once
+    public void set(float x, float y, float w, float h) {
+      this.x = x;
+      this.y = y;
+      this.w = w;
+      this.h = h;
+    }
+    // overload that copies another BoundingRect
+    public void set(BoundingRect other) {
+      set(other.x, other.y, other.w, other.h);
+    }
+
+    // grows the rectangle until it also covers another rectangle
+    public void union(BoundingRect other) {
+      float minX = min(x, other.x), minY = min(y, other.y);
+      float maxX = max(x + w, other.x + other.w), maxY = max(y + h, other.y + other.h);
+      set(minX, minY, maxX - minX, maxY - minY);
+    }
+
     // checks if a point is inside the rectangle
     public boolean pointIntersection(float px, float py) {
       return px > x && px < x + w && py > y && py < y + h;
@@ -466,18 +771,23 @@ public class Collider {
   /* misc. functions */
   // finds the bounding box of a polygon collider - this is the smallest non-rotated box that it will fit inside
   public static BoundingRect findBBox(Hitbox poly) {
-    PVector minPoint = new PVector(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
-    PVector maxPoint = new PVector(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+    return findBBox(poly, new BoundingRect(0, 0, 0, 0));
+  }
+  // overload that stores the bounding box in an existing BoundingRect instead of creating a new one
+  public static BoundingRect findBBox(Hitbox poly, BoundingRect out) {
+    float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
 
     for (PVector p : poly.rotatedPoints) {
-      if (p.x < minPoint.x) minPoint.x = p.x;
-      else if (p.x > maxPoint.x) maxPoint.x = p.x;
+      if (p.x < minX) minX = p.x;
+      if (p.x > maxX) maxX = p.x;
 
-      if (p.y < minPoint.y) minPoint.y = p.y;
-      else if (p.y > maxPoint.y) maxPoint.y = p.y;
+      if (p.y < minY) minY = p.y;
+      if (p.y > maxY) maxY = p.y;
     }
 
-    return new BoundingRect(minPoint.x, minPoint.y, maxPoint.x - minPoint.x, maxPoint.y - minPoint.y);
+    out.set(minX, minY, maxX - minX, maxY - minY);
+    return out;
   }
 
   // converts the vertices of a polygon into edge vectors, used for SAT and circle collision
@@ -492,6 +802,31 @@ public class Collider {
     return edges;
   }
 
+  // finds the normalized axis perpendicular to each edge of a polygon, and the polygon's projection onto each of them,
+  // and caches them in the hitbox. this uses the rotated points, so it only needs to run again when the polygon
+  // rotates - moving it doesn't change the axes.
+  public static void updateAxes(Hitbox poly) {
+    PVector[] pts = poly.rotatedPoints;
+    // do some black magic in the for loop constructor to use the last point and the first point for the first edge
+    for (int i = 0, j = pts.length - 1; i < pts.length; j = i++) {
+      float edgeX = pts[i].x - pts[j].x;
+      float edgeY = pts[i].y - pts[j].y;
+      float edgeLength = (float)sqrt(edgeX * edgeX + edgeY * edgeY);
+      float axisX = -edgeY / edgeLength, axisY = edgeX / edgeLength;
+      poly.axesX[i] = axisX;
+      poly.axesY[i] = axisY;
+
+      float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+      for (PVector p : pts) {
+        float projection = p.x * axisX + p.y * axisY;
+        if (projection < min) min = projection;
+        if (projection > max) max = projection;
+      }
+      poly.axisMin[i] = min;
+      poly.axisMax[i] = max;
+    }
+  }
+
   // returns the distance/gap between two intervals - if this is < 0, the intervals overlap
   public static float intervalDistance(float[] i1, float[] i2) {
     if (i1[0] < i2[0]) { return i2[0] - i1[1]; }
@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/* collects the changes entities make to the engine while it's updating - spawning, despawning, and dealing damage -
+ * so they can all be applied at once after every entity has been updated. this way nothing is added to or removed
+ * from the entity list while it's being looped over, and every entity sees the same state no matter what order they
+ * happen to be updated in. commands are applied in the order they were added. not thread-safe, so nothing should be
+ * added from think(). */
+@SuppressWarnings("unused") // keeps my ide happy
+public class CommandBuffer {
+  private static final int BULLET_STRIDE = 5; // x, y, velocity x, velocity y, damage
+
+  private final ArrayList<GameEntity> spawns = new ArrayList<>();
+  private final ArrayList<GameEntity> despawns = new ArrayList<>();
+  // damage commands, stored as parallel lists
+  private final ArrayList<GameEntity> damageTargets = new ArrayList<>();
+  private final ArrayList<GameEntity> damageSources = new ArrayList<>(); // null if nothing dealt the damage
+  private float[] damageAmounts = new float[64];
+  // bullets are stored as packed floats so firing doesn't allocate anything
+  private float[] bulletData = new float[64 * BULLET_STRIDE];
+  private boolean[] bulletShotByPlayer = new boolean[64];
+  private int numBullets = 0;
+
+  /* queues an entity to be added to the engine */
+  public void spawn(GameEntity entity) {
+    spawns.add(entity);
+  }
+
+  /* queues an entity to be removed from the engine */
+  public void despawn(GameEntity entity) {
+    despawns.add(entity);
+  }
+
+  /* queues damage to an entity - source can be null */
+  public void damage(GameEntity target, float damage, GameEntity source) {
+    int i = damageTargets.size();
+    if (i == damageAmounts.length) damageAmounts = Arrays.copyOf(damageAmounts, i * 2);
+    damageTargets.add(target);
+    damageSources.add(source);
+    damageAmounts[i] = damage;
+  }
+
+  /* queues a bullet */
+  public void spawnBullet(float x, float y, float velocityX, float velocityY, float impactDamage,
+                          boolean shotByPlayer) {
+    if (numBullets == bulletShotByPlayer.length) {
+      bulletData = Arrays.copyOf(bulletData, bulletData.length * 2);
+      bulletShotByPlayer = Arrays.copyOf(bulletShotByPlayer, numBullets * 2);
+    }
+    int i = numBullets * BULLET_STRIDE;
+    bulletData[i] = x;
+    bulletData[i + 1] = y;
+    bulletData[i + 2] = velocityX;
+    bulletData[i + 3] = velocityY;
+    bulletData[i + 4] = impactDamage;
+    bulletShotByPlayer[numBullets] = shotByPlayer;
+    ++numBullets;
+  }
+
+  /* returns the number of bullets waiting to be spawned */
+  public int getNumBullets() {
+    return numBullets;
+  }
+
+  /* marks queued despawns for deletion, then deals all queued damage. entities that deal damage are told about it
+   * through runOnDealDamage(), including whether the damage killed the target. everything that dies is handed to the
+   * engine so it doesn't have to look for them - except entities that are still waiting to be spawned, which are
+   * just marked and then thrown away by applySpawns() instead of being added. */
+  public void applyDespawnsAndDamage(Engine engine) {
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < despawns.size(); ++i) {
+      GameEntity ent = despawns.get(i);
+      if (ent.markForDelete) continue;
+      ent.markForDelete = true;
+      if (ent.storeSlot >= 0) engine.onEntityDied(ent);
+    }
+    despawns.clear();
+
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < damageTargets.size(); ++i) {
+      GameEntity target = damageTargets.get(i), source = damageSources.get(i);
+      // only the hit that actually kills something counts as a kill
+      boolean wasDead = target.markForDelete;
+      target.damage(damageAmounts[i]);
+      boolean killed = !wasDead && target.markForDelete;
+      if (killed && target.storeSlot >= 0) engine.onEntityDied(target);
+      if (source != null) source.runOnDealDamage(target, damageAmounts[i], killed);
+    }
+    damageTargets.clear();
+    damageSources.clear();
+  }
+
+  /* adds queued entities and bullets to the engine - entities that were despawned or killed before they were added are
+   * thrown away instead */
+  public void applySpawns(Engine engine) {
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < spawns.size(); ++i) {
+      GameEntity ent = spawns.get(i);
+      if (ent.markForDelete) engine.cancelSpawn(ent);
+      else engine.addEntityNow(ent);
+    }
+    spawns.clear();
+
+    for (int i = 0; i < numBullets; ++i) {
+      int j = i * BULLET_STRIDE;
+      engine.addBulletNow(bulletData[j], bulletData[j + 1], bulletData[j + 2], bulletData[j + 3], bulletData[j + 4],
+                          bulletShotByPlayer[i]);
+    }
+    numBullets = 0;
+  }
+
+  /* throws away every queued command */
+  public void clear() {
+    spawns.clear();
+    despawns.clear();
+    damageTargets.clear();
+    damageSources.clear();
+    numBullets = 0;
+  }
+}
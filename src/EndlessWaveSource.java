@@ -0,0 +1,84 @@
+import java.util.SplittableRandom;
+
+/* plays the waves from another source, then keeps making up new ones forever - turned on with --endless. each made up
+ * wave gets a difficulty budget that goes up every wave, and spends it on a random mix of enemy types (each type costs
+ * its difficulty, see EnemyType). the number of enemies that can be active at once goes up every wave too, so a long
+ * enough run keeps pushing the number of entities in the engine higher.
+ *
+ * every wave is made from the source's seed (--seed) and its wave number alone, so the same seed always makes the same
+ * waves, no matter what order they're asked for in, and making one only takes a handful of random numbers. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class EndlessWaveSource implements WaveSource {
+  // budget of the first made up wave, and how much it goes up by every wave after that
+  private static final float START_BUDGET = 30, BUDGET_PER_WAVE = 10;
+  // max active enemies (across every type) in the first made up wave, and how much it goes up by every wave after that
+  private static final float START_MAX_ACTIVE = 4, MAX_ACTIVE_PER_WAVE = 0.5f;
+  // each type's share of the budget is a random number from this up to this + 1, so no type's share is ever tiny
+  private static final float MIN_SHARE = 0.25f;
+  private static final long WAVE_SEED_STEP = 0x9E3779B97F4A7C15L; // spreads out the seeds of neighboring waves
+
+  private static final EnemyManager.EnemyType[] ENEMY_TYPES = EnemyManager.EnemyType.values();
+
+  private final WaveSource authoredWaves;
+  private final long waveSeed;
+  private int cachedWaveNum = -1; // the last wave that was made, so asking for it again doesn't make it again
+  private WavePlan.Wave cachedWave;
+
+  /* ctor, takes the waves to play before making new ones and the seed to make them with - each source only uses its
+   * own seed, so several endless simulations can run at once */
+  EndlessWaveSource(WaveSource authoredWaves, long seed) {
+    this.authoredWaves = authoredWaves;
+    this.waveSeed = seed;
+  }
+
+  /* there's no last wave, so this is as big as a wave number can get - Main.numWaves is set to this, which is what
+   * keeps the game from ever reaching the run complete screen. a run would need over two billion waves to reach it */
+  @Override
+  public int size() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public WavePlan.Wave getWave(int waveNum) throws IllegalArgumentException {
+    if (waveNum < 0) throw new IllegalArgumentException(String.format("Wave %d does not exist!", waveNum));
+    if (waveNum < authoredWaves.size()) return authoredWaves.getWave(waveNum);
+    if (waveNum != cachedWaveNum) {
+      cachedWave = generateWave(waveNum);
+      cachedWaveNum = waveNum;
+    }
+    return cachedWave;
+  }
+
+  /* returns the difficulty budget of a wave, or 0 if it's one of the authored waves */
+  public static float getBudget(int waveNum, int numAuthoredWaves) {
+    if (waveNum < numAuthoredWaves) return 0;
+    return START_BUDGET + BUDGET_PER_WAVE * (waveNum - numAuthoredWaves);
+  }
+
+  /* makes up a wave - the first made up wave is wave 0 here */
+  private WavePlan.Wave generateWave(int waveNum) {
+    int generatedNum = waveNum - authoredWaves.size();
+    float budget = getBudget(waveNum, authoredWaves.size());
+    float maxActiveBudget = START_MAX_ACTIVE + MAX_ACTIVE_PER_WAVE * generatedNum;
+    SplittableRandom random = new SplittableRandom(waveSeed + waveNum * WAVE_SEED_STEP);
+
+    // split the budget up randomly between the enemy types
+    float[] shares = new float[ENEMY_TYPES.length];
+    float totalShares = 0;
+    for (int i = 0; i < shares.length; ++i) {
+      shares[i] = MIN_SHARE + (float)random.nextDouble();
+      totalShares += shares[i];
+    }
+
+    int[] totals = new int[ENEMY_TYPES.length];
+    int[] maxActive = new int[ENEMY_TYPES.length];
+    for (EnemyManager.EnemyType enemyType : ENEMY_TYPES) {
+      int i = enemyType.ordinal();
+      float share = shares[i] / totalShares;
+      // whatever's left over after rounding down is just not spent
+      totals[i] = (int)(budget * share / enemyType.getDifficulty());
+      if (totals[i] > 0) maxActive[i] = Math.max(1, Math.min(Math.round(maxActiveBudget * share), totals[i]));
+    }
+    return new WavePlan.Wave(totals, maxActive);
+  }
+}
@@ -1,45 +1,38 @@
 import processing.core.PVector;
-import processing.data.JSONArray;
-import processing.data.JSONObject;
 
-import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
 
-/* invisible entity that spawns enemies */
+/* invisible entity that spawns enemies. everything that changes while a wave is running is kept in the manager rather
+ * than in EnemyType, so more than one manager (and more than one simulation) can run at once */
 public class EnemyManager extends GameEntity {
-  private final JSONArray allWaveData; // json data for all waves
+  private final WaveSource waveSource; // where waves are loaded from
+  private final SpawnState[] spawnStates; // indexed by EnemyType.ordinal()
   private boolean completed;
   private int remainingEnemies;
+  private boolean instantSpawns = false; // see setInstantSpawns()
 
-  // cache a list of all enemy types to prevent copying this on every frame
-  private static final List<EnemyType> enemyTypes = List.of(EnemyType.values());
+  private static final int WALL_TAG_ID = TagRegistry.id("wall");
+  private static final int SPAWN_CELL_SIZE = 50; // size of the cells spawn points are picked from
 
-  EnemyManager(JSONArray allWaveData) {
+  // cache an array of all enemy types to prevent copying this on every frame
+  private static final EnemyType[] enemyTypes = EnemyType.values();
+
+  EnemyManager(WaveSource waveSource) {
     // "purge exempt" ensures the manager will be in the engine for all of runtime
     super("purge exempt");
 
-    this.allWaveData = allWaveData;
+    this.waveSource = waveSource;
+    spawnStates = new SpawnState[enemyTypes.length];
+    for (EnemyType enemyType : enemyTypes) spawnStates[enemyType.ordinal()] = new SpawnState(enemyType);
   }
 
   // loads a wave, throws an IllegalArgumentException if the wave at that number doesn't exist
   public void loadWave(int waveNum) throws IllegalArgumentException {
-    if (waveNum < 0 || waveNum >= allWaveData.size()) {
-      throw new IllegalArgumentException(String.format("Wave %d does not exist!", waveNum));
-    }
-    JSONObject waveData = allWaveData.getJSONObject(waveNum);
-    for (EnemyType enemyType : enemyTypes) {
-      if (waveData.hasKey(enemyType.getName())) {
-        JSONObject enemyData = waveData.getJSONObject(enemyType.getName());
-        enemyType.setNumInWave(enemyData.getInt("total"));
-        enemyType.setMaxActive(enemyData.getInt("max active"));
-        enemyType.setNumActive(0);
-      }
-      else {
-        enemyType.setNumInWave(0);
-        enemyType.setMaxActive(0);
-        enemyType.setNumActive(0);
-      }
+    WavePlan.Wave wave = waveSource.getWave(waveNum);
+    for (SpawnState spawnState : spawnStates) {
+      spawnState.numInWave = wave.getTotal(spawnState.enemyType);
+      spawnState.maxActive = wave.getMaxActive(spawnState.enemyType);
+      spawnState.numActive = 0;
     }
   }
 
@@ -47,13 +40,19 @@ public class EnemyManager extends GameEntity {
     completed = !Main.FORCE_DEBUG_WAVE;
     remainingEnemies = 0;
     // do update checks for each enemy type, also check if the wave has been completed
-    for (EnemyType enemyType : EnemyType.values()) {
-      enemyType.update(dt);
-      remainingEnemies += enemyType.getNumInWave();
-      if (!enemyType.completed) completed = false;
+    for (SpawnState spawnState : spawnStates) {
+      spawnState.update(dt);
+      remainingEnemies += spawnState.numInWave;
+      if (!spawnState.completed) completed = false;
     }
   }
 
+  /* called by enemies this manager spawned when they die */
+  public void removeEnemy(EnemyType enemyType) {
+    SpawnState spawnState = spawnStates[enemyType.ordinal()];
+    if (spawnState.numActive > 0) --spawnState.numActive;
+  }
+
   public boolean waveFinished() {
     return completed;
   }
@@ -62,6 +61,68 @@ public class EnemyManager extends GameEntity {
     return remainingEnemies;
   }
 
+  public WaveSource getWaveSource() {
+    return waveSource;
+  }
+
+  /* when this is on, every free slot in the wave is filled on every update instead of one enemy per spawn interval, so
+   * the number of active enemies stays at the wave's max active. used by benchmarks, where the player would otherwise
+   * kill enemies about as fast as they spawn and the load would never get near what the scenario asks for */
+  public void setInstantSpawns(boolean instantSpawns) {
+    this.instantSpawns = instantSpawns;
+  }
+
+  /* the current wave's progress for one enemy type */
+  private class SpawnState {
+    private final EnemyType enemyType;
+    private final SpawnSampler spawnSampler; // each manager has its own, since samplers cache the player's position
+    private final PVector spawnPos = new PVector();
+    private int numInWave; // how many of the enemy are left in the current wave
+    private int numActive; // how many of the enemy are currently active in the engine
+    private int maxActive; // how many of the enemy can be active in the engine at once
+    private boolean completed; // whether all of the enemy for this wave have spawned and been killed
+    private float spawnTimer;
+
+    SpawnState(EnemyType enemyType) {
+      this.enemyType = enemyType;
+      spawnSampler = enemyType.createSpawnSampler();
+    }
+
+    // spawns enemies if they need to be spawned
+    void update(float dt) {
+      completed = numActive == 0 && numInWave == 0;
+      if (instantSpawns) {
+        while (numActive < maxActive && numInWave > 0) {
+          if (!spawnEnemy()) break; // try again next update
+        }
+      }
+      else if (spawnTimer > 0) spawnTimer -= dt;
+      else if (numActive < maxActive && numInWave > 0) {
+        spawnEnemy();
+      }
+    }
+
+    // spawns an enemy at a randomly generated spawn point, returns false if it couldn't
+    private boolean spawnEnemy() {
+      // if there's no player or nowhere valid to spawn right now (which shouldn't happen in a normal sized world), try
+      // again later
+      // spawns go into whatever engine this manager is in, so it doesn't matter which world it's managing
+      GameEntity player = engine.getPlayer();
+      if (player == null || !spawnSampler.sample(player.position, engine, WALL_TAG_ID, spawnPos)) {
+        spawnTimer = enemyType.spawnInterval;
+        return false;
+      }
+
+      // enemies are reused from a pool, so killing and spawning lots of them doesn't leave garbage behind
+      GameEntity enemy = engine.addPooled(engine.getPool(enemyType.enemyCtor), spawnPos);
+      enemy.enemyManager = EnemyManager.this; // so the enemy can tell this manager when it dies
+      ++numActive;
+      --numInWave;
+      spawnTimer = enemyType.spawnInterval;
+      return true;
+    }
+  }
+
   /* I can't decide whether this is the most elegant piece of code I've ever written, or the most terrifying...probably
    * both. Ether way it's definitely my greatest and most blatant heresy. */
   public enum EnemyType {
@@ -71,7 +132,9 @@ public class EnemyManager extends GameEntity {
         100,
         0.5f,
         400,
-        10000
+        10000,
+        35,
+        1
     ),
     TURRET(
         "turret",
@@ -79,82 +142,45 @@ public class EnemyManager extends GameEntity {
         200,
         1,
         750,
-        10000
+        10000,
+        60,
+        3
     );
 
     private final String name; // name of the enemy, used for loading wave data
-    private int numInWave; // how many of the enemy are left in the current wave
-    private int numActive; // how many of the enemy are currently active in the engine
-    private int maxActive; // how many of the enemy can be active in the engine at once
-    private boolean completed; // whether all of the enemy for this wave have spawned and been killed
-    private final int minSpawnX, minSpawnY, maxSpawnX, maxSpawnY; // used to prevent enemies from spawning inside walls
-    private final int minPlayerDistanceSq, maxPlayerDistanceSq;
-    private final Function<PVector, GameEntity> enemyCtor; // the constructor for the enemy type
+    private final int worldBorderMargin; // used to prevent enemies from spawning inside the border walls
+    private final int minPlayerDistance, maxPlayerDistance;
+    private final int wallClearance; // how far from other walls enemies spawn
+    private final Function<PVector, GameEntity> enemyCtor; // the constructor for the enemy type, used by its pool
     private final float spawnInterval; // minimum time between entity spawns, in seconds
-    private float spawnTimer;
+    private final int difficulty; // how much of a made up wave's budget one of the enemy costs, see EndlessWaveSource
 
     EnemyType(String name, Function<PVector, GameEntity> enemyCtor, int worldBorderMargin, float spawnInterval,
-              int minPlayerDistance, int maxPlayerDistance) {
+              int minPlayerDistance, int maxPlayerDistance, int wallClearance, int difficulty) {
       this.name = name;
       this.enemyCtor = enemyCtor;
-      minSpawnX = worldBorderMargin;
-      minSpawnY = worldBorderMargin;
-      maxSpawnX = Main.WORLD_WIDTH - worldBorderMargin;
-      maxSpawnY = Main.WORLD_HEIGHT - worldBorderMargin;
+      this.worldBorderMargin = worldBorderMargin;
       this.spawnInterval = spawnInterval;
-
-      minPlayerDistanceSq = minPlayerDistance * minPlayerDistance;
-      maxPlayerDistanceSq = maxPlayerDistance * maxPlayerDistance;
-    }
-
-    // spawns enemies if they need to be spawned
-    public void update(float dt) {
-      completed = numActive == 0 && numInWave == 0;
-      if (spawnTimer > 0) spawnTimer -= dt;
-      else if (numActive < maxActive && numInWave > 0) {
-        spawnEnemy();
-      }
-    }
-
-    // spawns an enemy at a randomly generated spawn point
-    private void spawnEnemy() {
-      PVector spawnPos = new PVector();
-      PVector playerDist = new PVector();
-      // do-while loops are the same as while loops, but they check the condition after running, which means they're
-      // guaranteed to run the code inside them at least once
-      do {
-        spawnPos.set(Main.randInt(minSpawnX, maxSpawnX), Main.randInt(minSpawnY, maxSpawnY));
-        playerDist.set(PVector.sub(spawnPos, Objects.requireNonNull(Main.player.get()).position));
-      } while (playerDist.magSq() < minPlayerDistanceSq || playerDist.magSq() > maxPlayerDistanceSq);
-
-      Main.engine.addEntity(enemyCtor.apply(spawnPos));
-      ++numActive;
-      --numInWave;
-      spawnTimer = spawnInterval;
-    }
-
-    public void removeEnemy() {
-      if (numActive > 0) --numActive;
+      this.minPlayerDistance = minPlayerDistance;
+      this.maxPlayerDistance = maxPlayerDistance;
+      this.wallClearance = wallClearance;
+      this.difficulty = difficulty;
     }
 
-    public void setNumInWave(int numInWave) {
-      this.numInWave = numInWave;
-    }
-
-    public void setMaxActive(int maxActive) {
-      this.maxActive = maxActive;
-    }
-
-    public void setNumActive(int numActive) {
-      this.numActive = numActive;
-    }
-
-    public int getNumInWave() {
-      return numInWave;
+    // makes a sampler that picks spawn points inside the world border margin, the right distance from the player, and
+    // away from walls
+    SpawnSampler createSpawnSampler() {
+      return new SpawnSampler(worldBorderMargin, worldBorderMargin, Main.WORLD_WIDTH - worldBorderMargin,
+                              Main.WORLD_HEIGHT - worldBorderMargin, SPAWN_CELL_SIZE, minPlayerDistance,
+                              maxPlayerDistance, wallClearance);
     }
 
     public String getName() {
       return name;
     }
+
+    public int getDifficulty() {
+      return difficulty;
+    }
   }
-}
\ No newline at end of file
+}
@@ -8,8 +8,8 @@ public abstract class EnemySuper extends GameEntity {
   /* ctor with tags that automatically appends the enemy tag */
   EnemySuper(String... tags) {
     super(tags);
-    this.tags.add("enemy");
-    this.tags.add("has hud direction indicator");
+    addTag("enemy");
+    addTag("has hud direction indicator");
   }
 
   /* draws a healthbar above the enemy */
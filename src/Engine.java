@@ -3,29 +3,92 @@ import processing.core.PGraphics;
 import processing.core.PVector;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
 
 /* handles rendering and updates for player, enemies, bullets, etc. */
 @SuppressWarnings("unused") // keeps my ide happy
 public final class Engine {
-  private final ArrayList<GameEntity> entities; // holds all entities
+  private final EntityStore entities; // holds all entities
+  private final SpatialHash spatialHash; // used to find entities near each other without checking everything
+  private final BulletSystem bullets; // bullets aren't entities, they're all updated and rendered together
+  private final HashMap<Function<?, ?>, EntityPool<?>> pools = new HashMap<>(); // keyed by the ctor they use
+  // entities that died during the current step, collected as they die so nothing has to search for them
+  private final ArrayList<GameEntity> deadEntities = new ArrayList<>();
+  private final CommandBuffer commands = new CommandBuffer(); // changes made by entities during the current step
+  private boolean updating = false; // true while entities are being updated, changes are buffered when this is true
+  // every entity with each tag (indexed by tag id), and read-only views of those lists that are handed out by
+  // getTagged()
+  @SuppressWarnings("unchecked") // generic arrays are a pain
+  private final ArrayList<GameEntity>[] taggedEntities = new ArrayList[TagRegistry.MAX_TAGS];
+  @SuppressWarnings("unchecked")
+  private final List<GameEntity>[] taggedViews = new List[TagRegistry.MAX_TAGS];
+  // goes up every time an entity with the tag is added or removed, see getTagVersion()
+  private final int[] tagVersions = new int[TagRegistry.MAX_TAGS];
   private final PGraphics canvas; // all entities are drawn to this
+  private BackgroundLayer background; // entities with the "static" tag are baked into this instead of being drawn
+  private FlowField flowField; // pathfinding toward the player, null if nothing needs it
+  private final ArrayList<GameEntity> visibleEntities = new ArrayList<>(); // reused every render
+  private final Collider.BoundingRect viewRect = new Collider.BoundingRect(0, 0, 0, 0); // the area the camera sees
+  // snapshot of the player taken at the start of every step, so entities on other threads don't need Main.player
+  private GameEntity player;
+  private final PVector playerPosition = new PVector(0, 0);
   private long currentTime;
   private float dt; // delta time (time since last frame)
   private float dtMult = 1f; // determines the "speed of time"
   private boolean dtAsSeconds = true; // whether delta time is stored and passed as seconds or milliseconds
+  // fixed timestep - when enabled, entities are always updated in ticks of the same length no matter how long frames
+  // take, and rendering is interpolated between the last two ticks
+  private boolean fixedTimestep = false;
+  private int tickRate; // ticks per second
+  private int maxTicksPerUpdate; // any time past this is dropped so a long stall can't snowball into longer ones
+  private float accumulator = 0; // time that hasn't been simulated yet
+  private float interpolation = 1; // how far the current frame is between the last two ticks, from 0 to 1
+  private int ticksLastUpdate = 0;
+  private Runnable tickListener; // runs after every tick
   private final PVector cameraPos = new PVector(0, 0);
   private final PVector cameraTarget = new PVector(0, 0);
+  private final PVector prevCameraTarget = new PVector(0, 0); // camera target on the previous tick
+  private final PVector interpolatedCameraTarget = new PVector(0, 0); // reused every frame so it doesn't make garbage
   private final PVector cameraOffset = new PVector(0, 0);
   private float cameraTightness = 1;
   private boolean cameraEnabled = false;
 
   private final String ansiCodeYellow = "";
 
+  // masks for tags the engine checks itself, cached so they don't have to be looked up every frame
+  private static final long DT_MULT_EXEMPT_TAG = TagRegistry.mask("dt mult exempt");
+  private static final long PURGE_EXEMPT_TAG = TagRegistry.mask("purge exempt");
+  private static final long STATIC_TAG = TagRegistry.mask("static");
+  private static final int PLAYER_TAG_ID = TagRegistry.id("player");
+
+  // sprites can stick out a bit past an entity's colliders, so anything this close to the edge of the screen is drawn
+  static final float CULL_MARGIN = 64;
+  // lower layers are drawn first, and entities with the same sprite image are drawn one after another in each layer
+  private static final Comparator<GameEntity> RENDER_ORDER =
+      Comparator.comparingInt(GameEntity::getRenderLayer).thenComparingInt(GameEntity::getBatchId);
+
+  // entities think() in chunks of this size on the common fork-join pool - fewer entities than this just think on the
+  // current thread, since handing them to other threads would take longer than running them
+  static final int THINK_CHUNK_SIZE = 64;
+  private static final ForkJoinPool workers = ForkJoinPool.commonPool();
+
   /* getters/setters */
+  // the pool entities think and bullets update on
+  static ForkJoinPool getWorkerPool() {
+    return workers;
+  }
+
   public void setCameraPos(PVector cameraPos) {
     this.cameraPos.set(cameraPos);
     // update camera target to prevent movement on the next update
     cameraTarget.set(cameraPos);
+    prevCameraTarget.set(cameraPos);
   }
 
   public void setCameraTarget(PVector cameraTarget) {
@@ -67,10 +130,46 @@ public final class Engine {
     return cameraOffset;
   }
 
-  /* ctors */
+  /* sets the layer the background and static entities are drawn to. without one, static entities are drawn like
+   * anything else and there's no background. */
+  public void setBackgroundLayer(BackgroundLayer background) {
+    this.background = background;
+    // bake anything that's already in the engine
+    for (int i = 0; i < entities.size(); ++i) {
+      if (entities.get(i).hasTag(STATIC_TAG)) background.addStatic(entities.get(i));
+    }
+  }
+
+  /* sets the flow field that leads enemies to the player - it's pointed at the player at the start of every step */
+  public void setFlowField(FlowField flowField) {
+    this.flowField = flowField;
+    for (int i = 0; i < entities.size(); ++i) flowField.addObstacle(entities.get(i));
+  }
+
+  /* returns the flow field, or null if there isn't one - safe to read from think() */
+  public FlowField getFlowField() {
+    return flowField;
+  }
+
+  /* returns the area of the world the camera can currently see */
+  public Collider.BoundingRect getViewRect() {
+    // headless engines don't have a canvas, so they pretend to have a window instead
+    float width = (canvas == null ? Main.WINDOW_WIDTH : canvas.width);
+    float height = (canvas == null ? Main.WINDOW_HEIGHT : canvas.height);
+    viewRect.set(cameraPos.x - cameraOffset.x, cameraPos.y - cameraOffset.y, width, height);
+    return viewRect;
+  }
+
+  /* ctors - the canvas can be null if the engine will never be rendered */
   Engine(PGraphics pg) {
-    entities = new ArrayList<>();
+    entities = new EntityStore();
     canvas = pg;
+    // the grid covers the world and its border walls - anything outside that is clamped onto the edge cells
+    spatialHash = new SpatialHash(-Main.BORDER_WALL_THICKNESS, -Main.BORDER_WALL_THICKNESS,
+                                  Main.WORLD_WIDTH + Main.BORDER_WALL_THICKNESS * 2,
+                                  Main.WORLD_HEIGHT + Main.BORDER_WALL_THICKNESS * 2,
+                                  Main.SPATIAL_HASH_CELL_SIZE);
+    bullets = new BulletSystem(this);
     // start timer for tracking time delta
     currentTime = System.nanoTime();
   }
@@ -79,61 +178,270 @@ public final class Engine {
     this(app.getGraphics());
   }
 
-  /* adds an entity to the entity list, then returns a reference to that entity */
+  /* adds an entity to the entity list, then returns a reference to that entity. entities added while the engine is
+   * updating are added at the end of the step, after everything else has been updated */
   @SuppressWarnings("UnusedReturnValue") // keeps my ide happy
   public <T extends GameEntity> T addEntity(T entity) {
     entity.engine = this; // all entities have a reference to the engine that contains them
-    entities.add(entity);
+    entity.runOnAdd();
+    if (updating) commands.spawn(entity);
+    else addEntityNow(entity);
     return entity;
   }
 
+  /* adds an entity right away, used by the command buffer */
+  void addEntityNow(GameEntity entity) {
+    entity.engine = this;
+    entity.prevPosition.set(entity.position); // otherwise the entity would be drawn sliding in from wherever it was
+    entities.add(entity);
+    spatialHash.insert(entity);
+    if (background != null && entity.hasTag(STATIC_TAG)) background.addStatic(entity);
+    if (flowField != null) flowField.addObstacle(entity);
+    // loop over each set bit in the entity's tag mask
+    for (long mask = entity.getTagMask(); mask != 0; mask &= mask - 1) {
+      int tagId = Long.numberOfTrailingZeros(mask);
+      getTagBucket(tagId).add(entity);
+      ++tagVersions[tagId];
+    }
+  }
+
+  /* adds an entity from a pool (reusing a dead one if possible), then returns a reference to that entity */
+  @SuppressWarnings("UnusedReturnValue") // keeps my ide happy
+  public <T extends GameEntity> T addPooled(EntityPool<T> pool, PVector position) {
+    return addEntity(pool.obtain(position));
+  }
+
+  /* returns the engine's pool for entities made with a ctor, creating it if it doesn't exist yet */
+  @SuppressWarnings("unchecked") // the pool for a ctor always makes whatever that ctor makes
+  public <T extends GameEntity> EntityPool<T> getPool(Function<PVector, T> ctor) {
+    EntityPool<?> pool = pools.get(ctor);
+    if (pool == null) {
+      pool = new EntityPool<>(ctor);
+      pools.put(ctor, pool);
+    }
+    return (EntityPool<T>)pool;
+  }
+
+  /* called when an entity in the engine gets a new tag after it was added */
+  void onTagAdded(GameEntity entity, int tagId) {
+    getTagBucket(tagId).add(entity);
+    ++tagVersions[tagId];
+  }
+
   /* renders all active entities to the canvas */
   public void render() {
     canvas.pushMatrix();
     canvas.translate(-cameraPos.x + cameraOffset.x, -cameraPos.y + cameraOffset.y);
-    if (Main.SHOW_BACKGROUND_GRID) {
-      // draw a simple grid to give player movement some visual feedback
-      canvas.noStroke();
-      canvas.fill(Main.BACKGROUND_GRID_COLOR_1);
-      canvas.rect(0, 0, Main.WORLD_WIDTH, Main.WORLD_HEIGHT);
-      boolean color1 = true;
-      for (int x = 0; x < Main.WORLD_WIDTH; x += Main.BACKGROUND_GRID_SIZE) {
-        for (int y = 0; y < Main.WORLD_HEIGHT; y += Main.BACKGROUND_GRID_SIZE) {
-          canvas.fill(color1 ? Main.BACKGROUND_GRID_COLOR_1 : Main.BACKGROUND_GRID_COLOR_2);
-          canvas.rect(x, y, Main.BACKGROUND_GRID_SIZE, Main.BACKGROUND_GRID_SIZE);
-          color1 = !color1;
-        }
-        color1 = !color1;
+
+    Collider.BoundingRect view = getViewRect();
+    if (background != null) background.render(canvas, view);
+
+    // only draw entities that are (nearly) onscreen - entities without colliders don't have a bounding box, so they're
+    // always drawn
+    float cullX = view.x - CULL_MARGIN, cullY = view.y - CULL_MARGIN;
+    float cullW = view.w + CULL_MARGIN * 2, cullH = view.h + CULL_MARGIN * 2;
+    visibleEntities.clear();
+    for (int i = 0; i < entities.size(); ++i) {
+      GameEntity ent = entities.get(i);
+      if (background != null && ent.hasTag(STATIC_TAG)) continue; // already drawn as part of the background
+      if (ent.colliders == null || ent.colliders.length == 0 || ent.bbox.rectIntersection(cullX, cullY, cullW, cullH)) {
+        visibleEntities.add(ent);
       }
     }
-    for (GameEntity ent : entities) {
-      ent.render(canvas);
+    visibleEntities.sort(RENDER_ORDER);
+
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < visibleEntities.size(); ++i) {
+      GameEntity ent = visibleEntities.get(i);
+      // draw the entity between where it was on the last two ticks - entities render themselves at their current
+      // position, so this just offsets the canvas
+      float offsetX = (ent.prevPosition.x - ent.position.x) * (1 - interpolation);
+      float offsetY = (ent.prevPosition.y - ent.position.y) * (1 - interpolation);
+      if (offsetX == 0 && offsetY == 0) {
+        ent.render(canvas);
+      }
+      else {
+        canvas.pushMatrix();
+        canvas.translate(offsetX, offsetY);
+        ent.render(canvas);
+        canvas.popMatrix();
+      }
     }
+    bullets.render(canvas, interpolation, view);
     canvas.popMatrix();
   }
 
   /* updates delta time and entities */
   public void update() {
-    // update delta time
-    long duration = System.nanoTime() - currentTime;
+    updateDeltaTime();
+    advance();
+  }
+
+  /* updates entities as if frameTime had passed since the last update, no matter how much time actually has - used to
+   * run the simulation faster than realtime */
+  public void update(float frameTime) {
     currentTime = System.nanoTime();
-    dt = (dtAsSeconds ? duration / 1000000000f : duration / 1000000f);
+    dt = frameTime;
+    advance();
+  }
+
+  /* runs however many updates fit into the current delta time */
+  private void advance() {
+    if (!fixedTimestep) {
+      step(dt);
+      if (cameraEnabled) updateCamera(cameraTarget);
+      return;
+    }
+
+    // run as many fixed ticks as fit into the time that has passed, and save the rest for the next update
+    float tickLength = getTickLength();
+    accumulator += dt;
+    ticksLastUpdate = 0;
+    while (accumulator >= tickLength && ticksLastUpdate < maxTicksPerUpdate) {
+      accumulator -= tickLength;
+      ++ticksLastUpdate;
+      dt = tickLength; // deltaTime() returns the tick length while entities are updating
+      prevCameraTarget.set(cameraTarget);
+      //noinspection ForLoopReplaceableByForEach
+      for (int i = 0; i < entities.size(); ++i) entities.get(i).prevPosition.set(entities.get(i).position);
+      step(tickLength);
+      if (tickListener != null) tickListener.run();
+    }
+    // if there wasn't enough time to catch up, drop whatever's left over instead of trying again next update
+    if (accumulator >= tickLength) accumulator %= tickLength;
+    dt = tickLength;
+    interpolation = accumulator / tickLength;
+
+    // the camera follows where the target is drawn, not where it is
+    if (cameraEnabled) updateCamera(interpolatedCameraTarget.set(prevCameraTarget).lerp(cameraTarget, interpolation));
+  }
 
-    // update all entities
+  /* updates every entity and bullet once, then applies everything they did and removes dead entities */
+  private void step(float dt) {
+    updating = true;
+
+    // take a snapshot of the player for this step
+    List<GameEntity> players = getTagged(PLAYER_TAG_ID);
+    player = (players.isEmpty() ? null : players.get(0));
+    if (player != null) playerPosition.set(player.position);
+    // the flow field has to be updated before anything thinks, since think() reads it from other threads
+    if (flowField != null && player != null) {
+      Profiler.start(Profiler.Phase.PATHFINDING);
+      flowField.update(playerPosition);
+      Profiler.stop(Profiler.Phase.PATHFINDING);
+    }
+
+    // let every entity think in parallel, then update them one at a time so they can safely affect each other
+    Profiler.start(Profiler.Phase.THINK);
+    if (entities.size() <= THINK_CHUNK_SIZE) think(0, entities.size(), dt);
+    else workers.invoke(new ThinkTask(0, entities.size(), dt));
+    Profiler.stop(Profiler.Phase.THINK);
+    Profiler.start(Profiler.Phase.ENTITY_UPDATE);
     //noinspection ForLoopReplaceableByForEach
     for (int i = 0; i < entities.size(); ++i) {
       GameEntity ent = entities.get(i);
-      if (ent.hasTag("dt mult exempt")) ent.update(dt);
+      long updateStart = (Profiler.ENABLED ? System.nanoTime() : 0);
+      if (ent.hasTag(DT_MULT_EXEMPT_TAG)) ent.update(dt);
       else if (dtMult != 0) ent.update(dt * dtMult);
+      if (Profiler.ENABLED) Profiler.addEntityTime(ent, System.nanoTime() - updateStart);
+      // keep the spatial hash in sync with wherever the entity moved to
+      spatialHash.update(ent);
+      // entities that killed themselves (or were killed since their last update) are collected here
+      if (ent.markForDelete) deadEntities.add(ent);
     }
+    Profiler.stop(Profiler.Phase.ENTITY_UPDATE);
+    Profiler.start(Profiler.Phase.BULLETS);
+    if (dtMult != 0) bullets.update(dt * dtMult, workers);
+    Profiler.stop(Profiler.Phase.BULLETS);
+    Profiler.start(Profiler.Phase.DEATH_PASS);
+    commands.applyDespawnsAndDamage(this); // anything this kills is passed to onEntityDied()
 
     // run death methods for deleted entities, then delete them
-    entities.forEach((ent) -> {
-      if (ent.markForDelete) ent.runOnDeath();
-    });
-    entities.removeIf((ent) -> ent.markForDelete);
+    if (!deadEntities.isEmpty()) {
+      long deadTags = 0;
+      //noinspection ForLoopReplaceableByForEach
+      for (int i = 0; i < deadEntities.size(); ++i) {
+        GameEntity ent = deadEntities.get(i);
+        ent.runOnDeath();
+        spatialHash.remove(ent);
+        entities.remove(ent);
+        deadTags |= ent.getTagMask();
+      }
+      removeFromTagBuckets(deadTags);
+      // pooled entities can only be reused once they're completely out of the engine
+      deadEntities.forEach(this::discardEntity);
+      deadEntities.clear();
+    }
+
+    // add everything that was spawned during the step (including by death methods)
+    updating = false;
+    commands.applySpawns(this);
+    Profiler.stop(Profiler.Phase.DEATH_PASS);
+  }
+
+  /* called by the command buffer when it kills an entity */
+  void onEntityDied(GameEntity ent) {
+    deadEntities.add(ent);
+  }
+
+  /* called by the command buffer for an entity that died before it was ever added - it still gets its death method,
+   * and goes back to its pool only now that nothing else can add it */
+  void cancelSpawn(GameEntity ent) {
+    ent.runOnDeath();
+    discardEntity(ent);
+  }
+
+  /* compacts the buckets for every tag in the mask, removing entities that aren't in the engine anymore - compacting
+   * each bucket once is much faster than removing entities from them one at a time */
+  private void removeFromTagBuckets(long tagMask) {
+    for (long mask = tagMask; mask != 0; mask &= mask - 1) {
+      ArrayList<GameEntity> bucket = taggedEntities[Long.numberOfTrailingZeros(mask)];
+      if (bucket != null) bucket.removeIf((ent) -> ent.storeSlot < 0);
+    }
+  }
+
+  /* runs think() for a range of entities */
+  private void think(int start, int end, float dt) {
+    for (int i = start; i < end; ++i) {
+      GameEntity ent = entities.get(i);
+      if (ent.hasTag(DT_MULT_EXEMPT_TAG)) ent.think(dt);
+      else if (dtMult != 0) ent.think(dt * dtMult);
+    }
+  }
+
+  /* splits a range of entities in half until each piece is small enough to think on one thread */
+  private class ThinkTask extends RecursiveAction {
+    private final int start, end;
+    private final float dt;
+
+    ThinkTask(int start, int end, float dt) {
+      this.start = start;
+      this.end = end;
+      this.dt = dt;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= THINK_CHUNK_SIZE) {
+        think(start, end, dt);
+        return;
+      }
+      int middle = (start + end) >>> 1;
+      invokeAll(new ThinkTask(start, middle, dt), new ThinkTask(middle, end, dt));
+    }
+  }
+
+  /* returns the player as of the start of the current step (or null if there isn't one) - safe to use from think().
+   * outside of a step, this returns whatever player is in the engine right now */
+  public GameEntity getPlayer() {
+    if (updating) return player;
+    List<GameEntity> players = getTagged(PLAYER_TAG_ID);
+    return (players.isEmpty() ? null : players.get(0));
+  }
 
-    if (cameraEnabled) updateCamera();
+  /* returns where the player was at the start of the current step - safe to use from think(), but don't change it */
+  public PVector getPlayerPosition() {
+    return playerPosition;
   }
 
   /* updates dt without updating entities, used when the game is paused */
@@ -150,6 +458,50 @@ public final class Engine {
     this.dtMult = dtMult;
   }
 
+  /* switches the engine to a fixed timestep. entities are updated tickRate times per second with the same time delta
+   * every time, and at most maxTicksPerUpdate times per call to update() - if the game falls further behind than
+   * that, the extra time is skipped. the multiplier from setDtMult() still applies to each tick. */
+  public void setFixedTimestep(int tickRate, int maxTicksPerUpdate) throws IllegalArgumentException {
+    if (tickRate <= 0 || maxTicksPerUpdate <= 0) throw new IllegalArgumentException(String.format(
+        "Invalid fixed timestep: tick rate and max ticks per update must be positive (received %d and %d)",
+        tickRate, maxTicksPerUpdate
+    ));
+    fixedTimestep = true;
+    this.tickRate = tickRate;
+    this.maxTicksPerUpdate = maxTicksPerUpdate;
+    accumulator = 0;
+  }
+
+  /* switches back to updating entities once per update() with however much time has passed */
+  public void setVariableTimestep() {
+    fixedTimestep = false;
+    interpolation = 1;
+  }
+
+  public boolean isFixedTimestep() {
+    return fixedTimestep;
+  }
+
+  /* sets something to run after every fixed tick */
+  public void setTickListener(Runnable tickListener) {
+    this.tickListener = tickListener;
+  }
+
+  /* returns the length of a fixed tick in the current delta time units */
+  public float getTickLength() {
+    return (dtAsSeconds ? 1f : 1000f) / tickRate;
+  }
+
+  /* returns the number of fixed ticks that ran during the last update */
+  public int getTicksLastUpdate() {
+    return ticksLastUpdate;
+  }
+
+  /* returns how far between the last two ticks entities are currently drawn, from 0 to 1 */
+  public float getInterpolation() {
+    return interpolation;
+  }
+
   /* returns the current time delta with the multiplier applied */
   public float deltaTime() {
     return dt * dtMult;
@@ -160,13 +512,106 @@ public final class Engine {
     return dt;
   }
 
-  /* returns all entities with the given tag (if there are no entities with that tag, returns an empty list) */
-  public ArrayList<GameEntity> getTagged(String tag) {
-    ArrayList<GameEntity> tagged = new ArrayList<>();
-    for (GameEntity ent : entities) {
-      if (ent.hasTag(tag)) tagged.add(ent);
+  /* returns all entities with the given tag (if there are no entities with that tag, returns an empty list). the list
+   * is a read-only view that the engine keeps up to date, so don't add or remove entities while looping over it */
+  public List<GameEntity> getTagged(String tag) {
+    return getTagged(TagRegistry.id(tag));
+  }
+  // overload that takes a tag id from TagRegistry
+  public List<GameEntity> getTagged(int tagId) {
+    if (taggedViews[tagId] == null) taggedViews[tagId] = Collections.unmodifiableList(getTagBucket(tagId));
+    return taggedViews[tagId];
+  }
+
+  /* returns a number that changes whenever an entity with the tag is added to or removed from the engine, so anything
+   * that caches something about those entities (like where the walls are) can tell when it's out of date without
+   * looking at every one of them */
+  public int getTagVersion(int tagId) {
+    return tagVersions[tagId];
+  }
+
+  /* returns the list of entities with a tag, creating it if it doesn't exist yet */
+  private ArrayList<GameEntity> getTagBucket(int tagId) {
+    if (taggedEntities[tagId] == null) taggedEntities[tagId] = new ArrayList<>();
+    return taggedEntities[tagId];
+  }
+
+  /* returns all entities with the given tag whose bounding boxes overlap the rectangle. this only looks at entities
+   * near the rectangle, so it's much faster than getTagged() for collision checks. this makes a new list every call, so
+   * anything that runs every tick should pass its own list to one of the overloads that take one */
+  public ArrayList<GameEntity> getTaggedInRect(long tagMask, float x, float y, float w, float h) {
+    return spatialHash.query(tagMask, x, y, w, h, new ArrayList<>());
+  }
+  // overloads that add the entities to an existing list instead of creating a new one
+  public ArrayList<GameEntity> getTaggedInRect(long tagMask, float x, float y, float w, float h,
+                                               ArrayList<GameEntity> out) {
+    return spatialHash.query(tagMask, x, y, w, h, out);
+  }
+  public ArrayList<GameEntity> getTaggedInRect(long tagMask, Collider.BoundingRect rect, ArrayList<GameEntity> out) {
+    return spatialHash.query(tagMask, rect.x, rect.y, rect.w, rect.h, out);
+  }
+  // overloads that take a BoundingRect and/or a tag name instead of a mask - passing a mask with several tags returns
+  // entities with any of them
+  public ArrayList<GameEntity> getTaggedInRect(long tagMask, Collider.BoundingRect rect) {
+    return getTaggedInRect(tagMask, rect.x, rect.y, rect.w, rect.h);
+  }
+  public ArrayList<GameEntity> getTaggedInRect(String tag, float x, float y, float w, float h) {
+    return getTaggedInRect(TagRegistry.mask(tag), x, y, w, h);
+  }
+  public ArrayList<GameEntity> getTaggedInRect(String tag, Collider.BoundingRect rect) {
+    return getTaggedInRect(TagRegistry.mask(tag), rect);
+  }
+
+  /* spawns a bullet, returns false if there are already too many bullets. like entities, bullets spawned while the
+   * engine is updating are added at the end of the step */
+  @SuppressWarnings("UnusedReturnValue") // keeps my ide happy
+  public boolean spawnBullet(float x, float y, float velocityX, float velocityY, float impactDamage,
+                             boolean shotByPlayer) {
+    if (!updating) return bullets.spawn(x, y, velocityX, velocityY, impactDamage, shotByPlayer);
+    if (bullets.getCount() + commands.getNumBullets() >= bullets.getCapacity()) return false;
+    commands.spawnBullet(x, y, velocityX, velocityY, impactDamage, shotByPlayer);
+    return true;
+  }
+
+  /* spawns a bullet right away, used by the command buffer */
+  void addBulletNow(float x, float y, float velocityX, float velocityY, float impactDamage, boolean shotByPlayer) {
+    bullets.spawn(x, y, velocityX, velocityY, impactDamage, shotByPlayer);
+  }
+
+  /* deals damage to an entity. while the engine is updating, damage is dealt at the end of the step, after everything
+   * has been updated. source is told about the damage through runOnDealDamage() and can be null */
+  public void damage(GameEntity target, float damage, GameEntity source) {
+    if (updating) commands.damage(target, damage, source);
+    else {
+      boolean wasDead = target.markForDelete;
+      target.damage(damage);
+      if (source != null) source.runOnDealDamage(target, damage, !wasDead && target.markForDelete);
     }
-    return tagged;
+  }
+  public void damage(GameEntity target, float damage) {
+    damage(target, damage, null);
+  }
+
+  /* removes an entity from the engine at the end of the current step (or the next one if the engine isn't
+   * updating) */
+  public void despawn(GameEntity entity) {
+    if (updating) commands.despawn(entity);
+    else entity.markForDelete = true;
+  }
+
+  /* removes every bullet */
+  public void clearBullets() {
+    bullets.clear();
+  }
+
+  /* returns the number of live bullets */
+  public int getNumBullets() {
+    return bullets.getCount();
+  }
+
+  /* returns the entity with a handle from GameEntity.getHandle(), or null if it isn't in the engine anymore */
+  public GameEntity getEntity(long handle) {
+    return entities.fromHandle(handle);
   }
 
   /* returns the number of active entities */
@@ -184,22 +629,64 @@ public final class Engine {
       );
   }
 
-  /* moves the camera toward the target based on the camera's tightness */
-  private void updateCamera() {
-    cameraPos.set(PVector.lerp(cameraPos, cameraTarget, cameraTightness));
+  /* moves the camera toward a target based on the camera's tightness */
+  private void updateCamera(PVector target) {
+    cameraPos.lerp(target, cameraTightness);
   }
 
   /* removes all entities from the entity list. if force is false, entities with the "purge exempt" tag are ignored. */
   public void purge(boolean force) {
-    if (force) entities.clear();
-    else entities.removeIf((ent) -> !ent.hasTag("purge exempt"));
+    bullets.clear();
+    commands.clear();
+    if (force) {
+      for (int i = 0; i < entities.size(); ++i) discardEntity(entities.get(i));
+      entities.clear();
+      spatialHash.clear();
+      for (ArrayList<GameEntity> bucket : taggedEntities) {
+        if (bucket != null) bucket.clear();
+      }
+    }
+    else {
+      // go backwards so the entities that get moved into removed slots have already been checked
+      long removedTags = 0;
+      for (int i = entities.size() - 1; i >= 0; --i) {
+        GameEntity ent = entities.get(i);
+        if (ent.hasTag(PURGE_EXEMPT_TAG)) continue;
+        spatialHash.remove(ent);
+        entities.remove(ent);
+        discardEntity(ent);
+        removedTags |= ent.getTagMask();
+      }
+      removeFromTagBuckets(removedTags);
+    }
   }
   public void purge() {
     purge(false);
   }
 
+  /* hands a removed entity back to the pool it came from. entities that weren't pooled are gone for good, so their
+   * sprites are released from the image cache */
+  private void discardEntity(GameEntity ent) {
+    if (background != null && ent.hasTag(STATIC_TAG)) background.removeStatic(ent);
+    if (flowField != null) flowField.removeObstacle(ent);
+    for (long mask = ent.getTagMask(); mask != 0; mask &= mask - 1) ++tagVersions[Long.numberOfTrailingZeros(mask)];
+    if (ent.pool != null) ent.pool.release(ent);
+    else if (ent.sprite != null) ent.sprite.release();
+  }
+
   /* removes entities with the tag from the list */
   public void removeTagged(String tag) {
-    entities.removeIf((ent) -> ent.hasTag(tag));
+    ArrayList<GameEntity> bucket = getTagBucket(TagRegistry.id(tag));
+    if (bucket.isEmpty()) return;
+    long removedTags = 0;
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < bucket.size(); ++i) {
+      GameEntity ent = bucket.get(i);
+      spatialHash.remove(ent);
+      entities.remove(ent);
+      discardEntity(ent);
+      removedTags |= ent.getTagMask();
+    }
+    removeFromTagBuckets(removedTags);
   }
-}
\ No newline at end of file
+}
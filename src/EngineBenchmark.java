@@ -0,0 +1,200 @@
+import processing.core.PConstants;
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/* runs the whole engine headlessly through a list of benchmark scenarios and reports how long each tick took - started
+ * with --benchmark=<file>. scenarios use the same format as waves.json, with an optional "name" and an optional
+ * "bullets" entry that keeps extra enemy bullets flying around the world:
+ *   {
+ *     "name": "turret wave with 1000 total",
+ *     "turret":  {"total": 1000, "max active": 100},
+ *     "bullets": {"total": 50000, "max active": 500}
+ *   }
+ * each scenario gets a fresh engine and world, and everything random is seeded with the same seed (set with --seed),
+ * so two runs of the same build simulate exactly the same thing. the player plays the same way it does in headless
+ * mode, except that it can't die, so the load never drops back to nothing halfway through a run. when the scenario's
+ * wave is finished it starts over. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class EngineBenchmark {
+  public static int measuredTicks = 20000; // set with --ticks=<number>
+  public static int warmupTicks = 5000; // set with --warmup=<number>, gives the jit time to compile everything
+  public static long seed = 272; // set with --seed=<number>
+
+  // extra bullets are fired at this speed from random points in the world, and don't hurt anything
+  private static final float BULLET_SPEED = 750;
+  private static final float WORLD_MARGIN = 50; // how far from the walls extra bullets can spawn
+
+  private static JSONObject scenario;
+  private static int bulletsRemaining, maxBulletsActive;
+  private static int playerDeaths, wavesCompleted;
+
+  /* runs every scenario in a file */
+  public static void run(String path) {
+    System.setProperty("java.awt.headless", "true");
+    SoundManager.initSilent();
+    Main.setupInputs();
+    Main.gameState = Main.GameState.GAMEPLAY;
+
+    JSONArray scenarios = HeadlessRunner.loadJSONArray(path);
+    System.out.printf("running %d scenarios - %d warmup ticks and %d measured ticks each, seed %d%n",
+                      scenarios.size(), warmupTicks, measuredTicks, seed);
+    for (int i = 0; i < scenarios.size(); ++i) runScenario(scenarios.getJSONObject(i), i);
+  }
+
+  /* sets up a fresh world for a scenario, warms it up, and then times it */
+  private static void runScenario(JSONObject scenarioData, int index) {
+    scenario = scenarioData;
+    String name = scenario.getString("name", "scenario " + index);
+    Main.setRandomSeed(seed);
+    HeadlessRunner.createEngine();
+    JSONArray waveData = new JSONArray();
+    waveData.append(scenario);
+    Main.numWaves = 1;
+    EnemyManager enemyManager = new EnemyManager(WavePlan.compile(waveData));
+    enemyManager.setInstantSpawns(true); // keeps the scenario at its max active the whole time
+    Main.enemyManager = new WeakReference<>(Main.engine.addEntity(enemyManager));
+    Main.resetWorld(0);
+    Objects.requireNonNull(Main.player.get()).invulnerable = true;
+    Input.pressMouse(PConstants.LEFT); // hold down the fire button for the whole run
+    if (scenario.hasKey("bullets")) {
+      bulletsRemaining = scenario.getJSONObject("bullets").getInt("total");
+      maxBulletsActive = scenario.getJSONObject("bullets").getInt("max active");
+    }
+    else {
+      bulletsRemaining = 0;
+      maxBulletsActive = 0;
+    }
+    playerDeaths = 0;
+    wavesCompleted = 0;
+
+    float tickLength = Main.engine.getTickLength();
+    for (int tick = 0; tick < warmupTicks; ++tick) runTick(tickLength);
+    playerDeaths = 0;
+    wavesCompleted = 0;
+
+    // time every tick on its own - everything else is added up across the whole run
+    long[] tickTimes = new long[measuredTicks];
+    long entityUpdates = 0, bulletUpdates = 0, totalTime = 0;
+    HashMap<Long, Long> startAllocated = getAllocatedBytes(getEngineThreadIds());
+    for (int tick = 0; tick < measuredTicks; ++tick) {
+      tickTimes[tick] = runTick(tickLength);
+      totalTime += tickTimes[tick];
+      entityUpdates += Main.engine.getNumEntities();
+      bulletUpdates += Main.engine.getNumBullets();
+    }
+    long allocated = getAllocatedSince(startAllocated);
+
+    Arrays.sort(tickTimes);
+    System.out.println(name);
+    System.out.printf("  tick time:        p50 %.3f ms, p99 %.3f ms, p999 %.3f ms, max %.3f ms%n",
+                      percentile(tickTimes, 0.5) / 1e6, percentile(tickTimes, 0.99) / 1e6,
+                      percentile(tickTimes, 0.999) / 1e6, tickTimes[tickTimes.length - 1] / 1e6);
+    System.out.printf("  throughput:       %.0f ticks/second, %.0f entities/second%n",
+                      measuredTicks / (totalTime / 1e9), entityUpdates / (totalTime / 1e9));
+    System.out.printf("  average load:     %.1f entities, %.1f bullets%n", (double)entityUpdates / measuredTicks,
+                      (double)bulletUpdates / measuredTicks);
+    if (startAllocated == null) System.out.println("  allocated:        not supported by this jvm");
+    else if (allocated < 0) System.out.println("  allocated:        unknown, an engine thread exited during the run");
+    else System.out.printf("  allocated:        %.0f bytes/tick%n", (double)allocated / measuredTicks);
+    System.out.printf("  waves completed:  %d%n", wavesCompleted);
+    System.out.printf("  player deaths:    %d%n", playerDeaths);
+  }
+
+  /* runs one tick and returns how long the engine took, in nanoseconds */
+  private static long runTick(float tickLength) {
+    HeadlessRunner.aimAtNearestEnemy();
+    spawnBullets();
+    long startTime = System.nanoTime();
+    Main.engine.update(tickLength);
+    long tickTime = System.nanoTime() - startTime;
+
+    // start the scenario over whenever it ends
+    if (Main.playerDead) {
+      ++playerDeaths;
+      Main.resetWorld(0);
+      Objects.requireNonNull(Main.player.get()).invulnerable = true;
+    }
+    else if (Objects.requireNonNull(Main.enemyManager.get()).waveFinished()) {
+      ++wavesCompleted;
+      Objects.requireNonNull(Main.enemyManager.get()).loadWave(0);
+    }
+    return tickTime;
+  }
+
+  /* tops up the bullets in the world to the scenario's "max active" */
+  private static void spawnBullets() {
+    while (bulletsRemaining > 0 && Main.engine.getNumBullets() < maxBulletsActive) {
+      float x = WORLD_MARGIN + Main.randFloat() * (Main.WORLD_WIDTH - WORLD_MARGIN * 2);
+      float y = WORLD_MARGIN + Main.randFloat() * (Main.WORLD_HEIGHT - WORLD_MARGIN * 2);
+      float angle = Main.randFloat() * (float)(Math.PI * 2);
+      if (!Main.engine.spawnBullet(x, y, (float)Math.cos(angle) * BULLET_SPEED, (float)Math.sin(angle) * BULLET_SPEED,
+                                   0, false)) {
+        break; // the engine is full
+      }
+      --bulletsRemaining;
+    }
+  }
+
+  /* returns the value at a percentile (from 0 to 1) of a sorted array */
+  private static long percentile(long[] sorted, double percentile) {
+    return sorted[Math.min((int)Math.ceil(percentile * sorted.length) - 1, sorted.length - 1)];
+  }
+
+  /* returns the ids of the threads the engine runs on - this one, and whichever of the engine's pool workers are
+   * alive right now */
+  private static long[] getEngineThreadIds() {
+    ForkJoinPool pool = Engine.getWorkerPool();
+    ArrayList<Long> ids = new ArrayList<>();
+    ids.add(Thread.currentThread().getId());
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)thread).getPool() == pool) {
+        ids.add(thread.getId());
+      }
+    }
+    long[] idArray = new long[ids.size()];
+    for (int i = 0; i < idArray.length; ++i) idArray[i] = ids.get(i);
+    return idArray;
+  }
+
+  /* returns how many bytes each of the threads has allocated so far (-1 for threads that have exited), or null if the
+   * jvm can't tell */
+  private static HashMap<Long, Long> getAllocatedBytes(long[] ids) {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) return null;
+    com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+    if (!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled()) return null;
+    long[] bytes = sunThreads.getThreadAllocatedBytes(ids);
+    HashMap<Long, Long> allocated = new HashMap<>();
+    for (int i = 0; i < ids.length; ++i) allocated.put(ids[i], bytes[i]);
+    return allocated;
+  }
+
+  /* returns how many bytes the engine's threads have allocated since a sample from getAllocatedBytes(), or -1 if one of
+   * the sampled threads has exited since then (its allocations can't be read anymore, so the total would be too low).
+   * only the sampled threads and the pool workers are counted, so other threads in the jvm don't change the result, and
+   * workers that were started during the run count everything they've allocated. */
+  private static long getAllocatedSince(HashMap<Long, Long> start) {
+    if (start == null) return -1;
+    HashSet<Long> ids = new HashSet<>(start.keySet());
+    for (long id : getEngineThreadIds()) ids.add(id);
+    HashMap<Long, Long> end = getAllocatedBytes(ids.stream().mapToLong(Long::longValue).toArray());
+    if (end == null) return -1;
+    long total = 0;
+    for (HashMap.Entry<Long, Long> entry : end.entrySet()) {
+      if (entry.getValue() < 0) return -1;
+      total += entry.getValue() - start.getOrDefault(entry.getKey(), 0L);
+    }
+    return total;
+  }
+}
@@ -0,0 +1,49 @@
+import processing.core.PVector;
+
+import java.util.ArrayDeque;
+import java.util.function.Function;
+
+/* keeps dead entities around so they can be reused instead of building new ones (and leaving the old ones for the
+ * garbage collector). entities from a pool are handed back to it automatically by the engine when they die, and
+ * runOnReuse() is called when they're pulled back out. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class EntityPool<T extends GameEntity> {
+  private final Function<PVector, T> ctor; // used when the pool is empty
+  private final ArrayDeque<T> free = new ArrayDeque<>();
+
+  /* ctor, takes the constructor to use when there's nothing to reuse */
+  EntityPool(Function<PVector, T> ctor) {
+    this.ctor = ctor;
+  }
+
+  /* returns a dead entity reset to a new position, or a brand new one if there aren't any. this doesn't add the
+   * entity to an engine - use Engine.addPooled() for that. */
+  public T obtain(PVector position) {
+    T ent = free.poll();
+    if (ent == null) {
+      ent = ctor.apply(position);
+      ent.pool = this;
+    }
+    else {
+      ent.markForDelete = false;
+      ent.runOnReuse(position);
+    }
+    return ent;
+  }
+
+  /* returns an entity to the pool; it must have come from this pool and must not be in an engine anymore */
+  @SuppressWarnings("unchecked") // entities only ever get a reference to the pool that created them
+  void release(GameEntity ent) {
+    free.push((T)ent);
+  }
+
+  /* returns how many entities are waiting to be reused */
+  public int getNumFree() {
+    return free.size();
+  }
+
+  /* throws away every waiting entity */
+  public void clear() {
+    free.clear();
+  }
+}
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+/* holds every entity in an engine. entities are packed at the front of an array so looping over them is fast, and
+ * removing one moves the last entity into its slot so removal is O(1) - this means the order changes whenever
+ * something is removed. since entities move around, anything that needs to refer to an entity later should hold onto
+ * its handle instead of an index. handles include a generation number, so a handle to an entity that's been removed
+ * (or removed and then reused from a pool) stops working instead of pointing at whatever took its place. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class EntityStore {
+  public static final long INVALID_HANDLE = -1;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private GameEntity[] entities = new GameEntity[INITIAL_CAPACITY]; // live entities, packed at the front
+  private int size = 0;
+  // handles are (generation << 32) | slot. each slot points to an entity's index in the packed array
+  private int[] slotIndex = new int[INITIAL_CAPACITY];
+  private int[] slotGeneration = new int[INITIAL_CAPACITY];
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  private int numFreeSlots = 0;
+  private int numSlots = 0;
+
+  /* adds an entity and returns its handle */
+  public long add(GameEntity ent) {
+    if (size == entities.length) entities = Arrays.copyOf(entities, size * 2);
+
+    // reuse a free slot if there is one
+    int slot;
+    if (numFreeSlots > 0) slot = freeSlots[--numFreeSlots];
+    else {
+      if (numSlots == slotIndex.length) {
+        slotIndex = Arrays.copyOf(slotIndex, numSlots * 2);
+        slotGeneration = Arrays.copyOf(slotGeneration, numSlots * 2);
+        freeSlots = Arrays.copyOf(freeSlots, numSlots * 2);
+      }
+      slot = numSlots++;
+    }
+
+    entities[size] = ent;
+    slotIndex[slot] = size;
+    ent.storeSlot = slot;
+    ent.handle = ((long)slotGeneration[slot] << 32) | slot;
+    ++size;
+    return ent.handle;
+  }
+
+  /* removes an entity by moving the last entity into its place, does nothing if it isn't in the store */
+  public void remove(GameEntity ent) {
+    int slot = ent.storeSlot;
+    if (slot < 0) return;
+    int index = slotIndex[slot];
+    GameEntity last = entities[--size];
+    entities[index] = last;
+    slotIndex[last.storeSlot] = index;
+    entities[size] = null;
+
+    // free the slot - bumping the generation kills any handles to it
+    ++slotGeneration[slot];
+    freeSlots[numFreeSlots++] = slot;
+    ent.storeSlot = -1;
+    ent.handle = INVALID_HANDLE;
+  }
+
+  /* returns the entity with a handle, or null if it's been removed */
+  public GameEntity fromHandle(long handle) {
+    if (handle == INVALID_HANDLE) return null;
+    int slot = (int)handle;
+    if (slot >= numSlots || slotGeneration[slot] != (int)(handle >>> 32)) return null;
+    return entities[slotIndex[slot]];
+  }
+
+  /* returns the entity at an index - indices change whenever something is removed, so only use this for looping */
+  public GameEntity get(int index) {
+    return entities[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /* removes every entity */
+  public void clear() {
+    while (size > 0) remove(entities[size - 1]);
+  }
+}
@@ -0,0 +1,242 @@
+import processing.core.PVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/* shared pathfinding for every enemy that chases the player. the world is split into a grid of navigation cells, and
+ * cells too close to an obstacle (anything with the obstacle tag, usually walls) are blocked. whenever the player moves
+ * into a different cell, the distance from every cell to the player is found with dijkstra's algorithm, and each cell
+ * is given a direction pointing to its neighbor that's closest to the player. enemies just look up the direction for
+ * whatever cell they're in, so the cost of pathfinding doesn't depend on how many enemies there are. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class FlowField {
+  // moving straight costs 10 and moving diagonally costs 14 (about 10 * sqrt(2)), so costs can stay ints
+  private static final int STRAIGHT_COST = 10, DIAGONAL_COST = 14;
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+  // neighbor offsets - the first four are straight and the last four are diagonal
+  private static final int[] NEIGHBOR_X = {1, -1, 0, 0, 1, 1, -1, -1};
+  private static final int[] NEIGHBOR_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+
+  private final float originX, originY, cellSize;
+  private final int cols, rows;
+  private final float clearance; // how far cell centers have to be from obstacles
+  private final long obstacleTag;
+  private final ArrayList<GameEntity> obstacles = new ArrayList<>();
+  private boolean obstaclesChanged = false;
+
+  private final boolean[] blocked;
+  private final int[] cost; // distance to the target cell
+  private final float[] directionX, directionY; // normalized, or (0, 0) if there's no better cell to move to
+  private int targetCell = -1;
+
+  // binary heap of cells ordered by cost, reused every time the field is rebuilt. cells can be pushed more than once
+  // if a shorter path to them is found, and the outdated copies are skipped when they're popped
+  private final int[] heapCells, heapCosts;
+  private int heapSize = 0;
+
+  /* ctor, takes the area covered by the field, the size of each (square) cell, how far cell centers need to be from
+   * obstacles, and the tag obstacles have */
+  FlowField(float originX, float originY, float width, float height, float cellSize, float clearance,
+            String obstacleTag) {
+    this.originX = originX;
+    this.originY = originY;
+    this.cellSize = cellSize;
+    this.clearance = clearance;
+    this.obstacleTag = TagRegistry.mask(obstacleTag);
+    cols = Math.max(1, (int)Math.ceil(width / cellSize));
+    rows = Math.max(1, (int)Math.ceil(height / cellSize));
+    blocked = new boolean[cols * rows];
+    cost = new int[cols * rows];
+    directionX = new float[cols * rows];
+    directionY = new float[cols * rows];
+    heapCells = new int[cols * rows * NEIGHBOR_X.length];
+    heapCosts = new int[cols * rows * NEIGHBOR_X.length];
+    Arrays.fill(cost, UNREACHABLE);
+  }
+
+  /* called by the engine whenever an entity is added - anything with the obstacle tag blocks the cells around it */
+  public void addObstacle(GameEntity ent) {
+    if ((ent.getTagMask() & obstacleTag) == 0) return;
+    obstacles.add(ent);
+    obstaclesChanged = true;
+  }
+
+  /* called by the engine whenever an entity is removed */
+  public void removeObstacle(GameEntity ent) {
+    if ((ent.getTagMask() & obstacleTag) == 0) return;
+    if (obstacles.remove(ent)) obstaclesChanged = true;
+  }
+
+  /* points the field at a target - this only does any real work if the target moved into a different cell or the
+   * obstacles changed since the last update. not thread-safe, so this has to be called while nothing is reading the
+   * field. */
+  public void update(PVector target) {
+    if (obstaclesChanged) {
+      findBlockedCells();
+      obstaclesChanged = false;
+      targetCell = -1; // forces the field to be rebuilt
+    }
+    int cell = cellIndex(cellX(target.x), cellY(target.y));
+    if (cell == targetCell) return;
+    targetCell = cell;
+    findCosts();
+    findDirections();
+  }
+
+  /* stores the direction to move from a point in out and returns true, or returns false if there's no path or the
+   * point is close enough to the target to head straight for it. safe to call from any thread during think(). */
+  public boolean getDirection(float x, float y, PVector out) {
+    int cell = cellIndex(cellX(x), cellY(y));
+    if (directionX[cell] == 0 && directionY[cell] == 0) return false;
+    out.set(directionX[cell], directionY[cell]);
+    return true;
+  }
+
+  /* returns whether a point is in a blocked cell */
+  public boolean isBlocked(float x, float y) {
+    return blocked[cellIndex(cellX(x), cellY(y))];
+  }
+
+  /* blocks every cell with a center that's within the clearance of an obstacle's bounding box */
+  private void findBlockedCells() {
+    Arrays.fill(blocked, false);
+    for (GameEntity obstacle : obstacles) {
+      if (!obstacle.updateBBox()) continue;
+      Collider.BoundingRect bbox = obstacle.bbox;
+      // only check the cells the grown bounding box could touch
+      int minX = cellX(bbox.x - clearance), minY = cellY(bbox.y - clearance);
+      int maxX = cellX(bbox.x + bbox.w + clearance), maxY = cellY(bbox.y + bbox.h + clearance);
+      for (int cy = minY; cy <= maxY; ++cy) {
+        for (int cx = minX; cx <= maxX; ++cx) {
+          float centerX = originX + (cx + 0.5f) * cellSize, centerY = originY + (cy + 0.5f) * cellSize;
+          // distance from the center to the closest point on the box
+          float dx = Math.max(Math.max(bbox.x - centerX, centerX - (bbox.x + bbox.w)), 0);
+          float dy = Math.max(Math.max(bbox.y - centerY, centerY - (bbox.y + bbox.h)), 0);
+          if (dx * dx + dy * dy < clearance * clearance) blocked[cellIndex(cx, cy)] = true;
+        }
+      }
+    }
+  }
+
+  /* finds the cost of the shortest path from every cell to the target cell with dijkstra's algorithm */
+  private void findCosts() {
+    Arrays.fill(cost, UNREACHABLE);
+    cost[targetCell] = 0;
+    heapSize = 0;
+    push(targetCell, 0); // the target cell is used even if it's blocked, since the player can get closer to walls
+
+    while (heapSize > 0) {
+      int cellCost = heapCosts[0];
+      int cell = pop();
+      if (cellCost > cost[cell]) continue; // a shorter path to this cell was already found
+      int cx = cell % cols, cy = cell / cols;
+      for (int i = 0; i < NEIGHBOR_X.length; ++i) {
+        int nx = cx + NEIGHBOR_X[i], ny = cy + NEIGHBOR_Y[i];
+        if (!canMove(cx, cy, nx, ny)) continue;
+        int neighbor = cellIndex(nx, ny);
+        int newCost = cellCost + (i < 4 ? STRAIGHT_COST : DIAGONAL_COST);
+        if (newCost < cost[neighbor]) {
+          cost[neighbor] = newCost;
+          push(neighbor, newCost);
+        }
+      }
+    }
+  }
+
+  /* points every cell at its cheapest neighbor */
+  private void findDirections() {
+    for (int cy = 0; cy < rows; ++cy) {
+      for (int cx = 0; cx < cols; ++cx) {
+        int cell = cellIndex(cx, cy);
+        directionX[cell] = 0;
+        directionY[cell] = 0;
+        // cells with a clear line to the target (and cells that can't reach it at all) don't get a direction, so
+        // enemies in them go straight for the target instead of zigzagging between the eight directions
+        if (cost[cell] == UNREACHABLE || hasLineOfSight(cx, cy)) continue;
+
+        int bestCost = cost[cell], bestX = 0, bestY = 0;
+        for (int i = 0; i < NEIGHBOR_X.length; ++i) {
+          int nx = cx + NEIGHBOR_X[i], ny = cy + NEIGHBOR_Y[i];
+          if (!canMove(cx, cy, nx, ny)) continue;
+          int neighborCost = cost[cellIndex(nx, ny)];
+          if (neighborCost < bestCost) {
+            bestCost = neighborCost;
+            bestX = NEIGHBOR_X[i];
+            bestY = NEIGHBOR_Y[i];
+          }
+        }
+        float length = (float)Math.sqrt(bestX * bestX + bestY * bestY);
+        if (length == 0) continue;
+        directionX[cell] = bestX / length;
+        directionY[cell] = bestY / length;
+      }
+    }
+  }
+
+  /* returns whether a straight line from a cell's center to the target cell's center misses every blocked cell */
+  private boolean hasLineOfSight(int cx, int cy) {
+    int targetX = targetCell % cols, targetY = targetCell / cols;
+    // step along the line half a cell at a time
+    int numSteps = Math.max(Math.abs(targetX - cx), Math.abs(targetY - cy)) * 2;
+    for (int i = 1; i < numSteps; ++i) {
+      float t = (float)i / numSteps;
+      int x = Math.round(cx + (targetX - cx) * t), y = Math.round(cy + (targetY - cy) * t);
+      if (blocked[cellIndex(x, y)]) return false;
+    }
+    return true;
+  }
+
+  /* returns whether something can move between two neighboring cells - diagonal moves can't cut past blocked corners */
+  private boolean canMove(int fromX, int fromY, int toX, int toY) {
+    if (toX < 0 || toY < 0 || toX >= cols || toY >= rows || blocked[cellIndex(toX, toY)]) return false;
+    if (fromX == toX || fromY == toY) return true;
+    return !blocked[cellIndex(toX, fromY)] && !blocked[cellIndex(fromX, toY)];
+  }
+
+  /* heap operations */
+  private void push(int cell, int cellCost) {
+    int i = heapSize++;
+    // move the new cell up until its parent is cheaper
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (heapCosts[parent] <= cellCost) break;
+      heapCells[i] = heapCells[parent];
+      heapCosts[i] = heapCosts[parent];
+      i = parent;
+    }
+    heapCells[i] = cell;
+    heapCosts[i] = cellCost;
+  }
+
+  private int pop() {
+    int top = heapCells[0];
+    int lastCell = heapCells[--heapSize], lastCost = heapCosts[heapSize];
+    // move the last cell down from the top until its children are more expensive
+    int i = 0;
+    while (true) {
+      int child = i * 2 + 1;
+      if (child >= heapSize) break;
+      if (child + 1 < heapSize && heapCosts[child + 1] < heapCosts[child]) ++child;
+      if (heapCosts[child] >= lastCost) break;
+      heapCells[i] = heapCells[child];
+      heapCosts[i] = heapCosts[child];
+      i = child;
+    }
+    heapCells[i] = lastCell;
+    heapCosts[i] = lastCost;
+    return top;
+  }
+
+  /* converts world coordinates to (clamped) cell coordinates */
+  private int cellX(float x) {
+    return Math.min(Math.max((int)Math.floor((x - originX) / cellSize), 0), cols - 1);
+  }
+
+  private int cellY(float y) {
+    return Math.min(Math.max((int)Math.floor((y - originY) / cellSize), 0), rows - 1);
+  }
+
+  private int cellIndex(int cx, int cy) {
+    return cy * cols + cx;
+  }
+}
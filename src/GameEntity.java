@@ -1,34 +1,45 @@
 import processing.core.PGraphics;
 import processing.core.PVector;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
 /* template class for entities in a game engine */
 @SuppressWarnings("unused") // keeps my ide happy
 public abstract class GameEntity {
-  protected final ArrayList<String> tags; // tags, can be used for almost anything
+  protected long tagMask; // tags, can be used for almost anything - each bit is a tag id from TagRegistry
   public Engine engine; // the engine containing the entity
   public EnemyManager enemyManager; // used if the entity is an enemy for keeping entity limits correct
   public Collider.Hitbox[] colliders; // included to prevent object slicing, does not need to be initialized
   public boolean markForDelete = false;
   public PVector position = new PVector(0, 0);
+  public final PVector prevPosition = new PVector(0, 0); // position on the previous fixed tick, set by the engine
   public float currentHealth;
   protected Sprite sprite;
+  EntityPool<?> pool; // the pool the entity came from, null if it was created normally
+  public final Collider.BoundingRect bbox = new Collider.BoundingRect(0, 0, 0, 0); // covers every collider
+
+  /* entity store bookkeeping - only touched by EntityStore */
+  int storeSlot = -1; // -1 if the entity isn't in a store
+  long handle = EntityStore.INVALID_HANDLE;
+
+  /* spatial hash bookkeeping - only touched by SpatialHash */
+  int gridMinX = -1, gridMinY, gridMaxX, gridMaxY; // range of cells the entity is in, gridMinX is -1 if it isn't
+
+  /* render layers - entities are drawn from the lowest layer to the highest */
+  public static final int LAYER_BACKGROUND = -100;
+  public static final int LAYER_DEFAULT = 0;
+  public static final int LAYER_PLAYER = 100;
+  protected int renderLayer = LAYER_DEFAULT;
 
   /* constants for debugging */
   public static boolean SHOW_COLLIDERS = false;
   private static final int COLLIDER_COLOR = 0xffff00ff;
   private static final int COLLIDER_STROKE_WEIGHT = 2;
 
-  /* default ctor, intializes tags to an empty array */
-  GameEntity() {
-    tags = new ArrayList<>();
-  }
+  /* default ctor, the entity starts with no tags */
+  GameEntity() {}
 
   /* ctor with tags */
   GameEntity(String... tags) {
-    this.tags = new ArrayList<>(Arrays.asList(tags));
+    tagMask = TagRegistry.mask(tags);
   }
 
   /* renders the entity to pg. by default it renders the sprite if it has been created, otherwise it does nothing */
@@ -39,12 +50,48 @@ public abstract class GameEntity {
     }
   }
 
+  /* runs before update() on every entity at the same time, spread across several threads. this is meant for work that
+   * only depends on the entity itself (steering, aiming, moving, etc) - it can read from the engine, but must not
+   * change anything except the entity's own fields, and should use engine.getPlayerPosition() instead of Main.player.
+   * anything that affects other entities (damage, spawning, deleting) goes in update(); does nothing by default. */
+  public void think(float dt) {}
+
   /* updates the entity, is passed the time since the last update; does nothing by default. */
   public void update(float dt) {}
 
   /* returns whether the entity has the specified tag */
   public final boolean hasTag(String tag) {
-    return tags.contains(tag);
+    int id = TagRegistry.find(tag);
+    return id >= 0 && (tagMask & (1L << id)) != 0;
+  }
+
+  /* returns whether the entity has any of the tags in a mask from TagRegistry.mask() */
+  public final boolean hasTag(long mask) {
+    return (tagMask & mask) != 0;
+  }
+
+  /* returns whether the entity has every tag in a mask from TagRegistry.mask() */
+  public final boolean hasAllTags(long mask) {
+    return (tagMask & mask) == mask;
+  }
+
+  /* returns a handle that can be passed to Engine.getEntity() - unlike a reference, it stops working once the entity is
+   * removed from the engine, even if it gets reused from a pool */
+  public final long getHandle() {
+    return handle;
+  }
+
+  /* returns the entity's tags as a mask */
+  public final long getTagMask() {
+    return tagMask;
+  }
+
+  /* adds a tag to the entity, and lets the engine know so it shows up in getTagged() */
+  public final void addTag(String tag) {
+    int id = TagRegistry.id(tag);
+    if ((tagMask & (1L << id)) != 0) return;
+    tagMask |= 1L << id;
+    if (engine != null) engine.onTagAdded(this, id);
   }
 
   public final boolean colliding(GameEntity other, PVector transVec) {
@@ -66,6 +113,14 @@ public abstract class GameEntity {
     return false;
   }
 
+  /* fits the bounding box around all the entity's colliders, returns false if it doesn't have any */
+  public final boolean updateBBox() {
+    if (colliders == null || colliders.length == 0) return false;
+    bbox.set(colliders[0].getBBox());
+    for (int i = 1; i < colliders.length; ++i) bbox.union(colliders[i].getBBox());
+    return true;
+  }
+
   public final void setColliderPos(PVector pos) {
     if (this.colliders != null) {
       for (Collider.Hitbox collider : colliders) {
@@ -88,13 +143,35 @@ public abstract class GameEntity {
     if (currentHealth <= 0) markForDelete = true;
   }
 
+  /* runs when damage this entity dealt through Engine.damage() is applied - killed is true if it's what killed the
+   * target; does nothing by default */
+  public void runOnDealDamage(GameEntity target, float damage, boolean killed) {}
+
+  /* runs whenever the entity is added to an engine, right after its engine is set (if the engine is updating, this is
+   * before the entity is actually in the engine); does nothing by default */
+  public void runOnAdd() {}
+
   /* runs once when the entity is deleted by the engine; does nothing by default */
   public void runOnDeath() {}
 
-  /* returns whether the entity is onscreen, almost certainly produces some false negatives */
+  /* runs when an entity from an EntityPool is reused after dying, and should put it back in the same state the ctor
+   * does. entities that are spawned from a pool have to override this; does nothing by default */
+  public void runOnReuse(PVector position) {}
+
+  /* returns whether any part of the entity is onscreen. entities with colliders are tested using their bounding box,
+   * anything else only counts as onscreen if its position is */
   public final boolean isOnscreen() {
-    PVector onscreenPos = PVector.add(PVector.sub(position, engine.getCameraPos()), engine.getCameraOffset());
-    return onscreenPos.x > 0 && onscreenPos.x < Main.WINDOW_WIDTH
-        && onscreenPos.y > 0 && onscreenPos.y < Main.WINDOW_HEIGHT;
+    Collider.BoundingRect view = engine.getViewRect();
+    if (colliders == null || colliders.length == 0) return view.pointIntersection(position.x, position.y);
+    return bbox.rectIntersection(view);
+  }
+
+  public final int getRenderLayer() {
+    return renderLayer;
+  }
+
+  /* returns the batch id of the entity's sprite, or 0 if it doesn't have one */
+  public final int getBatchId() {
+    return sprite == null ? 0 : sprite.getBatchId();
   }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+import processing.core.PConstants;
+import processing.core.PGraphics;
+import processing.data.JSONArray;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/* runs the game with no window, no sound, and no framerate cap - started with --headless. the player stands in the
+ * middle of the world and shoots at the nearest enemy, and the game plays through every wave over and over until enough
+ * ticks have been simulated, then prints how fast it ran. used for soak testing waves and measuring simulation speed on
+ * machines without a display. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class HeadlessRunner {
+  public static long maxTicks = 100000; // set with --ticks=<number>
+  private static final long REPORT_INTERVAL = 10000; // ticks between progress reports in verbose mode
+  private static final int ENEMY_TAG_ID = TagRegistry.id("enemy");
+
+  private static int wavesCompleted = 0, runsCompleted = 0, playerDeaths = 0;
+  private static int peakEntities = 0, peakBullets = 0, highestWave = 0;
+  private static int numAuthoredWaves; // waves in waves.json, the rest are made up in endless mode
+
+  /* sets everything up and runs the simulation */
+  public static void run() {
+    System.setProperty("java.awt.headless", "true");
+    if (Main.VERBOSE) System.out.println("starting headless simulation...");
+
+    // Sprite.app is left null so sprites don't try to load anything, and sounds are never loaded
+    SoundManager.initSilent();
+    Main.setupInputs();
+    createEngine();
+
+    // waves are streamed from the file as they're needed, the same way the game does it
+    WaveSource waveSource = new StreamingWaveSource(AssetManager.WAVE_DATA_PATH,
+                                                    () -> openInput(AssetManager.WAVE_DATA_PATH));
+    numAuthoredWaves = waveSource.size();
+    if (Main.ENDLESS) waveSource = new EndlessWaveSource(waveSource, Main.ENDLESS_SEED);
+    // in endless mode this is Integer.MAX_VALUE on purpose, so currentWave < numWaves is always true and the run never
+    // ends (see EndlessWaveSource.size())
+    Main.numWaves = waveSource.size();
+    Main.enemyManager = new WeakReference<>(Main.engine.addEntity(new EnemyManager(waveSource)));
+    Main.gameState = Main.GameState.GAMEPLAY;
+    Main.resetWorld();
+    // the player would never get past the first few made up waves otherwise, and then nothing would get harder
+    if (Main.ENDLESS) Objects.requireNonNull(Main.player.get()).invulnerable = true;
+
+    // hold down the fire button for the whole run
+    Input.pressMouse(PConstants.LEFT);
+
+    float tickLength = Main.engine.getTickLength();
+    long startTime = System.nanoTime();
+    for (long tick = 1; tick <= maxTicks; ++tick) {
+      aimAtNearestEnemy();
+      Main.engine.update(tickLength);
+      peakEntities = Math.max(peakEntities, Main.engine.getNumEntities());
+      peakBullets = Math.max(peakBullets, Main.engine.getNumBullets());
+      checkGameState();
+
+      if (Main.VERBOSE && tick % REPORT_INTERVAL == 0) {
+        System.out.printf("%d ticks, wave %d, %d entities, %d bullets%n", tick, Main.currentWave,
+                          Main.engine.getNumEntities(), Main.engine.getNumBullets());
+      }
+    }
+    printReport((System.nanoTime() - startTime) / 1000000000.0, tickLength);
+  }
+
+  /* replaces Main.engine with a new engine that has no canvas to draw to */
+  static void createEngine() {
+    Main.engine = new Engine((PGraphics)null);
+    Main.engine.setCameraEnabled(true);
+    Main.engine.setCameraOffset(Main.WINDOW_WIDTH / 2f, Main.WINDOW_HEIGHT / 2f);
+    Main.engine.setFixedTimestep(Main.TICK_RATE, 1); // every update is exactly one tick
+    Main.engine.setTickListener(Input::consumePresses);
+    Main.engine.setFlowField(Main.createFlowField());
+  }
+
+  /* points the "mouse" at whichever enemy is closest to the player */
+  static void aimAtNearestEnemy() {
+    Player player = Objects.requireNonNull(Main.player.get());
+    GameEntity nearest = null;
+    float nearestDistSq = Float.MAX_VALUE;
+    List<GameEntity> enemies = Main.engine.getTagged(ENEMY_TAG_ID);
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < enemies.size(); ++i) {
+      GameEntity enemy = enemies.get(i);
+      float dx = enemy.position.x - player.position.x, dy = enemy.position.y - player.position.y;
+      if (dx * dx + dy * dy < nearestDistSq) {
+        nearestDistSq = dx * dx + dy * dy;
+        nearest = enemy;
+      }
+    }
+    if (nearest == null) return;
+
+    // the player aims at the mouse's position on the screen, so convert the enemy's position to screen coordinates
+    float screenX = nearest.position.x - Main.engine.getCameraPos().x + Main.engine.getCameraOffset().x;
+    float screenY = nearest.position.y - Main.engine.getCameraPos().y + Main.engine.getCameraOffset().y;
+    Input.update(Math.round(screenX), Math.round(screenY));
+  }
+
+  /* does what Main.draw() and the hud would do after an update - skips straight to the next wave when one is
+   * finished, and starts over when the player dies or every wave has been beaten */
+  private static void checkGameState() {
+    if (Main.playerDead) {
+      ++playerDeaths;
+      Main.resetWorld();
+      return;
+    }
+
+    EnemyManager enemyManager = Objects.requireNonNull(Main.enemyManager.get());
+    if (!enemyManager.waveFinished()) return;
+    ++wavesCompleted;
+    ++Main.currentWave;
+    highestWave = Math.max(highestWave, Main.currentWave);
+    if (Main.currentWave < Main.numWaves) {
+      Main.engine.clearBullets();
+      enemyManager.loadWave(Main.currentWave);
+      // same heal the player gets from the wave complete menu
+      Player player = Objects.requireNonNull(Main.player.get());
+      player.currentHealth = Math.min(player.currentHealth + 35, player.maxHealth);
+    }
+    else {
+      ++runsCompleted;
+      Main.resetWorld();
+    }
+  }
+
+  /* loads a json array from a path, then from the data folder, then from inside the jar */
+  static JSONArray loadJSONArray(String path) {
+    try (InputStream input = openInput(path)) {
+      if (input == null) throw new IOException("file not found");
+      return new JSONArray(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to load " + path + "!", e);
+    }
+  }
+
+  /* opens a file from a path, then from the data folder, then from inside the jar - returns null if it isn't in any of
+   * them */
+  static InputStream openInput(String path) throws IOException {
+    File file = new File(path);
+    if (!file.exists()) file = new File("data", path);
+    return (file.exists() ? new FileInputStream(file) : HeadlessRunner.class.getResourceAsStream("/data/" + path));
+  }
+
+  /* prints how the run went and how fast it was */
+  private static void printReport(double wallTime, float tickLength) {
+    double gameTime = maxTicks * (double)tickLength;
+    System.out.println("headless simulation complete");
+    System.out.printf("  ticks simulated:  %d (%.1f seconds of game time)%n", maxTicks, gameTime);
+    System.out.printf("  wall time:        %.2f seconds%n", wallTime);
+    System.out.printf("  throughput:       %.0f ticks/second (%.1fx realtime)%n", maxTicks / wallTime,
+                      gameTime / wallTime);
+    System.out.printf("  waves completed:  %d%n", wavesCompleted);
+    System.out.printf("  runs completed:   %d%n", runsCompleted);
+    System.out.printf("  highest wave:     %d%n", highestWave);
+    if (Main.ENDLESS) {
+      System.out.printf("  highest budget:   %.0f%n", EndlessWaveSource.getBudget(highestWave, numAuthoredWaves));
+    }
+    System.out.printf("  player deaths:    %d%n", playerDeaths);
+    System.out.printf("  peak entities:    %d%n", peakEntities);
+    System.out.printf("  peak bullets:     %d%n", peakBullets);
+  }
+}
@@ -18,6 +18,7 @@ public class Hud {
   private static PGraphics pg; // where to draw the hud to
   private static Main.GameState state;
   private static final int CLICK_DELAY_FRAMES = 0;
+  private static final int DIRECTION_INDICATOR_TAG_ID = TagRegistry.id("has hud direction indicator");
   private static int clickDelayTimer = CLICK_DELAY_FRAMES;
   private static ArrayList<Weapon> availableWeapons;
   private static ArrayList<Item> availableItems;
@@ -47,13 +48,13 @@ public class Hud {
     width = app.width;
     height = app.height;
 
-    // load fonts
-    UAV_OSD_SANS_MONO_64 = app.createFont(UAV_OSD_SANS_MONO_PATH, 64);
-    UAV_OSD_SANS_MONO_48 = app.createFont(UAV_OSD_SANS_MONO_PATH, 48);
-    UAV_OSD_SANS_MONO_28 = app.createFont(UAV_OSD_SANS_MONO_PATH, 28);
-    UAV_OSD_SANS_MONO_24 = app.createFont(UAV_OSD_SANS_MONO_PATH, 24);
-    UAV_OSD_SANS_MONO_20 = app.createFont(UAV_OSD_SANS_MONO_PATH, 20);
-    OLNEY_LIGHT_16 = app.createFont(OLNEY_LIGHT_PATH, 16);
+    // get fonts - these are preloaded by the asset manager
+    UAV_OSD_SANS_MONO_64 = AssetManager.getFont(UAV_OSD_SANS_MONO_PATH, 64);
+    UAV_OSD_SANS_MONO_48 = AssetManager.getFont(UAV_OSD_SANS_MONO_PATH, 48);
+    UAV_OSD_SANS_MONO_28 = AssetManager.getFont(UAV_OSD_SANS_MONO_PATH, 28);
+    UAV_OSD_SANS_MONO_24 = AssetManager.getFont(UAV_OSD_SANS_MONO_PATH, 24);
+    UAV_OSD_SANS_MONO_20 = AssetManager.getFont(UAV_OSD_SANS_MONO_PATH, 20);
+    OLNEY_LIGHT_16 = AssetManager.getFont(OLNEY_LIGHT_PATH, 16);
 
     // buttons...so many buttons
     buttons.put("pause menu resume", new Button(pg)
@@ -458,7 +459,7 @@ public class Hud {
         pg.noStroke();
         pg.fill(Colors.TRANS_RED.getCode());
 
-        for (GameEntity ent : Main.engine.getTagged("has hud direction indicator")) {
+        for (GameEntity ent : Main.engine.getTagged(DIRECTION_INDICATOR_TAG_ID)) {
           if (!ent.isOnscreen()) {
             PVector dir = PVector.sub(ent.position, Objects.requireNonNull(Main.player.get()).position);
             pg.pushMatrix();
@@ -2,6 +2,7 @@ import processing.core.PConstants;
 import processing.core.PVector;
 
 import java.util.HashMap;
+import java.util.HashSet;
 
 @SuppressWarnings("unused") // keeps my IDE happy
 public class Input {
@@ -15,6 +16,10 @@ public class Input {
   // are between 0 and 222, but only 96 of those are valid keys, so a basic array to hold all of their states would be
   // over twice as large as it needs to be.
   private static final HashMap<Integer, Boolean> keyStates = new HashMap<>();
+  // keys that went down or up since the last update - a key that's pressed and released between two updates would
+  // otherwise never be seen at all
+  private static final HashSet<Integer> pressedSinceUpdate = new HashSet<>();
+  private static final HashSet<Integer> releasedSinceUpdate = new HashSet<>();
 
   // binds added without specifying an activation mode in addInput will default to this activation mode. changing this
   // will not affect inputs that have already been added!
@@ -50,6 +55,25 @@ public class Input {
     // forEach takes a function (or a lambda, which is an unnamed, single-use function that's meant for things like
     // this), then loops through the container (in this case a hashmap) and calls that function on every item inside it
     inputBinds.forEach((s, bind) -> bind.update());
+    pressedSinceUpdate.clear();
+    releasedSinceUpdate.clear();
+  }
+
+  // deactivates press-only and release-only binds until they're pressed or released again. presses stay active across
+  // updates until something consumes them - the engine calls this after every fixed tick, so each press is seen by
+  // exactly one tick even if a frame runs no ticks at all. when nothing is ticking (menus, pausing), Main calls this
+  // at the end of every frame instead
+  public static void consumePresses() {
+    inputBinds.forEach((s, bind) -> bind.consume());
+  }
+  // overload that only consumes one bind, for things that check a press once per frame instead of once per tick.
+  // throws an IllegalArgumentException if the name is invalid
+  public static void consumePress(String name) throws IllegalArgumentException {
+    if (!inputBinds.containsKey(name)) {
+      throw new IllegalArgumentException(String.format(
+          "Cannot consume the input \"%s\" because it does not exist!", name));
+    }
+    inputBinds.get(name).consume();
   }
 
   // returns the state of an input binding, throws an IllegalArgumentException if the name is invalid (in other words,
@@ -115,7 +139,7 @@ public class Input {
   public static class Bind {
     private BindMode mode;
     private Key[] boundKeys;
-    private boolean active, wasActive;
+    private boolean active, wasDown;
 
     // ctor
     Bind(Key[] keys, BindMode mode) {
@@ -123,46 +147,42 @@ public class Input {
 
       this.mode = mode;
       active = false;
-      wasActive = (mode == BindMode.RELEASE_ONLY);
+      wasDown = false;
     }
 
     // updates whether the bind should be active or not
     public void update() {
-      // check if at least one key bound to the input is pressed
-      boolean boundKeyPressed = false;
+      // check if at least one key bound to the input is pressed, or was pressed or released since the last update
+      boolean boundKeyDown = false, boundKeyPressed = false, boundKeyReleased = false;
       for (Key k : boundKeys) {
-        if (keyStates.getOrDefault(k.getCode(), false)) {
-          boundKeyPressed = true;
-          break;
-        }
+        if (keyStates.getOrDefault(k.getCode(), false)) boundKeyDown = true;
+        if (pressedSinceUpdate.contains(k.getCode())) boundKeyPressed = true;
+        if (releasedSinceUpdate.contains(k.getCode())) boundKeyReleased = true;
       }
 
       // update based on the activation mode
       if (mode == BindMode.CONTINUOUS) {
-        active = boundKeyPressed;
+        active = boundKeyDown || boundKeyPressed; // a tap still counts for one update
+      }
+      // presses and releases are latched - they stay active until they're consumed, even across several updates
+      else if (mode == BindMode.PRESS_ONLY) {
+        if (boundKeyPressed || (boundKeyDown && !wasDown)) active = true;
       }
       else {
-        if ((mode == BindMode.PRESS_ONLY && boundKeyPressed) ||
-            (mode == BindMode.RELEASE_ONLY && !boundKeyPressed)) {
-          if (!wasActive) {
-            active = true;
-            wasActive = true;
-          }
-          else {
-            active = false;
-          }
-        }
-        else {
-          active = false;
-          wasActive = false;
-        }
+        if (boundKeyReleased || (!boundKeyDown && wasDown)) active = true;
       }
+      wasDown = boundKeyDown;
     }
 
     public boolean isActive() {
       return active;
     }
 
+    // deactivates the bind if it only activates for a single frame
+    public void consume() {
+      if (mode != BindMode.CONTINUOUS) active = false;
+    }
+
     // getters/setters
     public BindMode getMode() {
       return mode;
@@ -187,22 +207,25 @@ public class Input {
 
   // called in the Processing-specific pressed/released functions
   public static void pressKey(int code) {
+    // held keys repeat their pressed events, which shouldn't count as new presses
+    if (!keyStates.getOrDefault(code, false)) pressedSinceUpdate.add(code);
     keyStates.put(code, true);
   }
   public static void releaseKey(int code) {
+    if (keyStates.getOrDefault(code, false)) releasedSinceUpdate.add(code);
     keyStates.put(code, false);
   }
   public static void pressMouse(int button) {
     // switch-case statements are like if/else if chains, but *waaayy* faster
     switch (button) {
       case PConstants.LEFT:
-        keyStates.put(Key.LEFT_MOUSE.getCode(), true);
+        pressKey(Key.LEFT_MOUSE.getCode());
         break;
       case PConstants.RIGHT:
-        keyStates.put(Key.RIGHT_MOUSE.getCode(), true);
+        pressKey(Key.RIGHT_MOUSE.getCode());
         break;
       case PConstants.CENTER:
-        keyStates.put(Key.MIDDLE_MOUSE.getCode(), true);
+        pressKey(Key.MIDDLE_MOUSE.getCode());
         break;
     }
   }
@@ -210,13 +233,13 @@ public class Input {
     // switch-case statements are like if/else if chains, but *waaayy* faster
     switch (button) {
       case PConstants.LEFT:
-        keyStates.put(Key.LEFT_MOUSE.getCode(), false);
+        releaseKey(Key.LEFT_MOUSE.getCode());
         break;
       case PConstants.RIGHT:
-        keyStates.put(Key.RIGHT_MOUSE.getCode(), false);
+        releaseKey(Key.RIGHT_MOUSE.getCode());
         break;
       case PConstants.CENTER:
-        keyStates.put(Key.MIDDLE_MOUSE.getCode(), false);
+        releaseKey(Key.MIDDLE_MOUSE.getCode());
         break;
     }
   }
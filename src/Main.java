@@ -1,5 +1,4 @@
 import processing.core.PApplet;
-import processing.data.JSONArray;
 
 import java.lang.ref.WeakReference;
 import java.util.*;
@@ -12,17 +11,29 @@ public class Main extends PApplet {
   public static final int WINDOW_WIDTH = 1280;
   public static final int WINDOW_HEIGHT = 720;
   public static final int TARGET_FRAME_RATE = 60; // set to -1 to uncap
+  // entities are updated at a fixed rate independent of the framerate - this is higher than the framerate so there's
+  // almost always at least one tick per frame
+  public static final int TICK_RATE = 120;
+  public static final int MAX_TICKS_PER_FRAME = 10;
   public static final boolean SHOW_BACKGROUND_GRID = true;
 
   /* debug stuff */
   public static boolean VERBOSE = false;
   public static boolean FORCE_DEBUG_WAVE = false; // loads wave 0, which is reserved for testing and debugging
+  public static boolean HEADLESS = false; // runs the game logic as fast as possible with no window, see HeadlessRunner
+  public static String BENCHMARK_PATH = null; // runs benchmark scenarios from this file instead, see EngineBenchmark
+  public static boolean ENDLESS = false; // keeps making up new waves after the last one, see EndlessWaveSource
+  public static long ENDLESS_SEED = 272; // what made up waves are made from, set with --seed=<number>
 
   /* engine/world constants */
+  // everything random in the game uses this, so setting the seed makes a run repeatable
   private static final Random random = new Random();
   public static final int WORLD_WIDTH = 2500;
   public static final int WORLD_HEIGHT = 2500;
   public static final int BORDER_WALL_THICKNESS = 100;
+  public static final int SPATIAL_HASH_CELL_SIZE = 125; // should be a bit bigger than most enemies
+  public static final int NAV_CELL_SIZE = 50; // size of the cells enemies pathfind through
+  public static final int NAV_CLEARANCE = 36; // how far enemy paths stay from walls - a bit more than a chaser's radius
   public static final ArrayList<Item> unequippedItems = new ArrayList<>(Arrays.asList(Item.values()));
 
   /* graphics constants */
@@ -32,6 +43,7 @@ public class Main extends PApplet {
   public static final int BACKGROUND_GRID_COLOR_1 = Colors.WHITE.getCode();
   public static final int BACKGROUND_GRID_COLOR_2 = Colors.LIGHTER_TEAL.getCode();
   public static final int BACKGROUND_GRID_SIZE = 250;
+  public static final int BACKGROUND_CHUNK_SIZE = 512; // size of each cached piece of the background
   public static final int MENU_BACKGROUND_COLOR = Colors.WHITE.getCode();
   // WeakReferences reference an object while still allowing it to be destroyed - if we just referenced the player
   // directly, the engine wouldn't be able to remove it until any references to it were set to null
@@ -45,6 +57,7 @@ public class Main extends PApplet {
   public static int currentWave;
   public static int numWaves;
   public static GameState gameState = GameState.MAIN_MENU;
+  private boolean loading = true; // true until all assets have been loaded
 
   /* anything run from outside the processing editor has to call size() in settings() because...reasons? */
   @Override
@@ -71,17 +84,9 @@ public class Main extends PApplet {
       System.out.print("setting up inputs...");
       System.out.flush();
     }
-    // set up inputs
-    Input.addInput("move up", new Key[]{Key.W, Key.UP});
-    Input.addInput("move down", new Key[]{Key.S, Key.DOWN});
-    Input.addInput("move left", new Key[]{Key.A, Key.LEFT});
-    Input.addInput("move right", new Key[]{Key.D, Key.RIGHT});
-    Input.addInput("fire semi", Key.LEFT_MOUSE, Input.BindMode.PRESS_ONLY);
-    Input.addInput("fire auto", Key.LEFT_MOUSE);
-    Input.addInput("pause", Key.ESCAPE, Input.BindMode.PRESS_ONLY);
-    Input.addInput("dash", Key.SPACEBAR, Input.BindMode.PRESS_ONLY);
-    Input.addInput("slow time", Key.SHIFT);
+    setupInputs();
     if (VERBOSE) System.out.println("done");
+    Profiler.init();
 
     if (VERBOSE) {
       System.out.print("initializing engine...");
@@ -90,42 +95,97 @@ public class Main extends PApplet {
     // give Sprite a reference to load images with
     Sprite.app = this;
 
-    // setup sound effects
-    SoundManager.init(this);
+    // start loading sprites and wave data in the background, fonts and sounds are loaded between loading screen
+    // frames - setup finishes in finishSetup() once everything is loaded
+    AssetManager.startLoading(this);
 
     // set up engine
     engine = new Engine(this);
     engine.setCameraEnabled(true);
     engine.setCameraOffset(width / 2f, height / 2f);
     engine.setCameraTightness(0.1f);
-
-    // add enemy manager - this will hang out for all of runtime and will never be deleted
-    JSONArray waveJson = loadJSONArray("waves.json");
-    numWaves = waveJson.size();
-    enemyManager = new WeakReference<>(engine.addEntity(new EnemyManager(waveJson)));
+    engine.setFixedTimestep(TICK_RATE, MAX_TICKS_PER_FRAME);
+    // the background covers the world and its border walls
+    engine.setBackgroundLayer(new BackgroundLayer(this, -BORDER_WALL_THICKNESS, -BORDER_WALL_THICKNESS,
+                                                  WORLD_WIDTH + BORDER_WALL_THICKNESS * 2,
+                                                  WORLD_HEIGHT + BORDER_WALL_THICKNESS * 2, BACKGROUND_CHUNK_SIZE));
+    engine.setTickListener(Input::consumePresses); // makes sure each press is only seen by one tick
+    engine.setFlowField(createFlowField());
     if (VERBOSE) System.out.println("done");
 
+    if (VERBOSE) System.out.println("setup complete\n\nloading assets...");
+  }
+
+  /* sets up input bindings - static so headless mode can use it too */
+  public static void setupInputs() {
+    Input.addInput("move up", new Key[]{Key.W, Key.UP});
+    Input.addInput("move down", new Key[]{Key.S, Key.DOWN});
+    Input.addInput("move left", new Key[]{Key.A, Key.LEFT});
+    Input.addInput("move right", new Key[]{Key.D, Key.RIGHT});
+    Input.addInput("fire semi", Key.LEFT_MOUSE, Input.BindMode.PRESS_ONLY);
+    Input.addInput("fire auto", Key.LEFT_MOUSE);
+    Input.addInput("pause", Key.ESCAPE, Input.BindMode.PRESS_ONLY);
+    Input.addInput("dash", Key.SPACEBAR, Input.BindMode.PRESS_ONLY);
+    Input.addInput("slow time", Key.SHIFT);
+  }
+
+  /* runs on the first frame after all assets have loaded */
+  private void finishSetup() {
     if (VERBOSE) {
-      System.out.print("performing final setup...");
+      System.out.print("assets loaded, performing final setup...");
       System.out.flush();
     }
+    // add enemy manager - this will hang out for all of runtime and will never be deleted
+    WaveSource waveSource = AssetManager.getWaveSource();
+    if (ENDLESS) waveSource = new EndlessWaveSource(waveSource, ENDLESS_SEED);
+    // in endless mode this is Integer.MAX_VALUE on purpose, so currentWave < numWaves is always true and the run never
+    // ends (see EndlessWaveSource.size())
+    numWaves = waveSource.size();
+    enemyManager = new WeakReference<>(engine.addEntity(new EnemyManager(waveSource)));
+
     Hud.init(this);
     setState(GameState.MAIN_MENU);
-    if (VERBOSE) System.out.println("done");
+    loading = false;
+    if (VERBOSE) System.out.println("done\n\nstarting draw loop...");
+  }
 
-    if (VERBOSE) System.out.println("setup complete\n\nstarting draw loop...");
+  /* draws a loading bar while assets are loading */
+  private void drawLoadingScreen() {
+    final float barWidth = width / 3f, barHeight = 20;
+    background(MENU_BACKGROUND_COLOR);
+    noStroke();
+    fill(Colors.LIGHTER_TEAL.getCode());
+    rect((width - barWidth) / 2, (height - barHeight) / 2, barWidth, barHeight);
+    fill(Colors.MEDIUM_TEAL.getCode());
+    rect((width - barWidth) / 2, (height - barHeight) / 2, barWidth * AssetManager.getProgress(), barHeight);
   }
 
   /* draw runs once at the beginning of every frame */
   @Override
   public void draw() {
+    // nothing else can run until everything is loaded
+    if (loading) {
+      AssetManager.update(); // fonts and sounds are made on this thread
+      if (AssetManager.isDone()) finishSetup();
+      else {
+        drawLoadingScreen();
+        return;
+      }
+    }
+
+    Profiler.beginFrame();
+    Profiler.start(Profiler.Phase.INPUT);
     Input.update(mouseX, mouseY);
+    Profiler.stop(Profiler.Phase.INPUT);
+    Profiler.start(Profiler.Phase.HUD_UPDATE);
     Hud.update();
+    Profiler.stop(Profiler.Phase.HUD_UPDATE);
 
     // update and render everything in the engine during gameplay
     if (gameState == GameState.GAMEPLAY) {
       // check for pause input
       if (Input.isActive("pause")) {
+        Input.consumePress("pause"); // this is checked every frame, not every tick
         if (paused) {
           paused = false;
           Hud.setState(GameState.GAMEPLAY);
@@ -137,8 +197,10 @@ public class Main extends PApplet {
       }
 
       // update entities if not paused
+      Profiler.start(Profiler.Phase.ENGINE_UPDATE);
       if (!paused) engine.update();
       else engine.updateDeltaTime();
+      Profiler.stop(Profiler.Phase.ENGINE_UPDATE);
 
       // check if the player is dead
       if (playerDead) setState(GameState.GAME_OVER);
@@ -148,7 +210,7 @@ public class Main extends PApplet {
         ++currentWave;
         if (currentWave < numWaves) {
           paused = true;
-          engine.removeTagged("bullet");
+          engine.clearBullets();
           Hud.setState(GameState.WAVE_COMPLETE);
           SoundManager.play("wave complete");
         }
@@ -162,14 +224,25 @@ public class Main extends PApplet {
     // render based on game state
     if (Objects.requireNonNull(gameState) == GameState.GAMEPLAY) {
       background(GAMEPLAY_BACKGROUND_COLOR);
+      Profiler.start(Profiler.Phase.ENGINE_RENDER);
       engine.render();
+      Profiler.stop(Profiler.Phase.ENGINE_RENDER);
     }
     else {
       background(MENU_BACKGROUND_COLOR);
     }
 
     // hud is always rendered regardless of state
+    Profiler.start(Profiler.Phase.HUD_RENDER);
     Hud.render();
+    Profiler.stop(Profiler.Phase.HUD_RENDER);
+
+    // presses are normally consumed by the engine's ticks, but nothing ticks in menus or while paused
+    if (gameState != GameState.GAMEPLAY || paused) Input.consumePresses();
+
+    // the profiler overlay isn't included in the frame's time
+    Profiler.endFrame(engine);
+    Profiler.render(this);
   }
 
   /* switches between game states */
@@ -177,41 +250,55 @@ public class Main extends PApplet {
     paused = false;
     gameState = newState;
 
-    if (gameState == GameState.GAMEPLAY) {
-      engine.purge(); // clear out any old entities
-
-      // add world border
-      // top wall
-      engine.addEntity(new Wall(-BORDER_WALL_THICKNESS, -BORDER_WALL_THICKNESS,
-                                WORLD_WIDTH + BORDER_WALL_THICKNESS * 2, BORDER_WALL_THICKNESS));
-      // bottom wall
-      engine.addEntity(new Wall(-BORDER_WALL_THICKNESS, WORLD_HEIGHT,
-                                WORLD_WIDTH + BORDER_WALL_THICKNESS * 2, BORDER_WALL_THICKNESS));
-      // left wall
-      engine.addEntity(new Wall(-BORDER_WALL_THICKNESS, 0, BORDER_WALL_THICKNESS, WORLD_HEIGHT));
-      // right wall
-      engine.addEntity(new Wall(WORLD_WIDTH, 0, BORDER_WALL_THICKNESS, WORLD_HEIGHT));
-
-      // add player
-      playerDead = false;
-      player = new WeakReference<>(engine.addEntity(new Player(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f)));
-      engine.setCameraPos(Objects.requireNonNull(player.get()).position.x, Objects.requireNonNull(player.get()).position.y);
-
-      // give the player a weapon
-      Objects.requireNonNull(player.get()).equipWeapon(Weapon.DEVGUN);
-
-      // return to and load the first wave
-      currentWave = FORCE_DEBUG_WAVE ? 0 : 1;
-      Objects.requireNonNull(enemyManager.get()).loadWave(currentWave);
-    }
+    if (gameState == GameState.GAMEPLAY) resetWorld();
 
     Hud.setState(newState);
   }
 
+  /* creates the flow field chasers use to find their way to the player - it covers the inside of the world */
+  public static FlowField createFlowField() {
+    return new FlowField(0, 0, WORLD_WIDTH, WORLD_HEIGHT, NAV_CELL_SIZE, NAV_CLEARANCE, "wall");
+  }
+
+  /* clears the engine and starts a new run from the first wave - static so headless mode can use it too */
+  public static void resetWorld() {
+    resetWorld(FORCE_DEBUG_WAVE ? 0 : 1);
+  }
+
+  /* overload that starts from any wave */
+  public static void resetWorld(int firstWave) {
+    engine.purge(); // clear out any old entities
+
+    // add world border
+    // top wall
+    engine.addEntity(new Wall(-BORDER_WALL_THICKNESS, -BORDER_WALL_THICKNESS,
+                              WORLD_WIDTH + BORDER_WALL_THICKNESS * 2, BORDER_WALL_THICKNESS));
+    // bottom wall
+    engine.addEntity(new Wall(-BORDER_WALL_THICKNESS, WORLD_HEIGHT,
+                              WORLD_WIDTH + BORDER_WALL_THICKNESS * 2, BORDER_WALL_THICKNESS));
+    // left wall
+    engine.addEntity(new Wall(-BORDER_WALL_THICKNESS, 0, BORDER_WALL_THICKNESS, WORLD_HEIGHT));
+    // right wall
+    engine.addEntity(new Wall(WORLD_WIDTH, 0, BORDER_WALL_THICKNESS, WORLD_HEIGHT));
+
+    // add player
+    playerDead = false;
+    player = new WeakReference<>(engine.addEntity(new Player(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f)));
+    engine.setCameraPos(Objects.requireNonNull(player.get()).position.x, Objects.requireNonNull(player.get()).position.y);
+
+    // give the player a weapon
+    Objects.requireNonNull(player.get()).equipWeapon(Weapon.DEVGUN);
+
+    // return to and load the first wave
+    currentWave = firstWave;
+    Objects.requireNonNull(enemyManager.get()).loadWave(currentWave);
+  }
+
   /* override exit() to run stuff before exiting */
   @Override
   public void exit() {
     if (VERBOSE) System.out.println("draw loop complete\n\nshutting down...");
+    Profiler.close();
     super.exit();
   }
 
@@ -247,12 +334,44 @@ public class Main extends PApplet {
         case "--showcolliders":
           GameEntity.SHOW_COLLIDERS = true;
           break;
+        case "--profile":
+          Profiler.ENABLED = true;
+          break;
         case "-w", "--windowed":
           FULLSCREEN = false;
+          break;
+        case "--headless":
+          HEADLESS = true;
+          break;
+        case "--endless":
+          ENDLESS = true;
+          break;
+        default:
+          if (arg.startsWith("--ticks=")) {
+            int ticks = parseTickCount(arg, "--ticks=");
+            HeadlessRunner.maxTicks = ticks;
+            EngineBenchmark.measuredTicks = ticks;
+          }
+          else if (arg.startsWith("--warmup=")) EngineBenchmark.warmupTicks = parseTickCount(arg, "--warmup=");
+          else if (arg.startsWith("--seed=")) {
+            long seed = Long.parseLong(arg.substring("--seed=".length()));
+            // the benchmark reseeds before every scenario, everything else is seeded once here
+            setRandomSeed(seed);
+            EngineBenchmark.seed = seed;
+            ENDLESS_SEED = seed;
+          }
+          else if (arg.startsWith("--benchmark=")) BENCHMARK_PATH = arg.substring("--benchmark=".length());
+          else if (arg.startsWith("--profilecsv=")) {
+            Profiler.ENABLED = true;
+            Profiler.CSV_PATH = arg.substring("--profilecsv=".length());
+          }
       }
     }
 
-    PApplet.main("Main");
+    // headless mode and benchmarks run the simulation on this thread without ever opening a window
+    if (BENCHMARK_PATH != null) EngineBenchmark.run(BENCHMARK_PATH);
+    else if (HEADLESS) HeadlessRunner.run();
+    else PApplet.main("Main");
   }
 
   public enum GameState {
@@ -269,4 +388,30 @@ public class Main extends PApplet {
   public static int randInt(int min, int max) {
     return random.nextInt(min, max);
   }
+
+  // returns a random float from 0 (inclusive) to 1 (exclusive)
+  public static float randFloat() {
+    return random.nextFloat();
+  }
+
+  /* parses the number in a --ticks= or --warmup= arg, and exits with a usage error if it isn't a whole number from 1 to
+   * Integer.MAX_VALUE - the benchmark keeps every measured tick's time in an array, so it can't go any higher */
+  private static int parseTickCount(String arg, String prefix) {
+    String value = arg.substring(prefix.length());
+    try {
+      long ticks = Long.parseLong(value);
+      if (ticks >= 1 && ticks <= Integer.MAX_VALUE) return (int)ticks;
+    }
+    catch (NumberFormatException ignored) {
+      // falls through to the usage error
+    }
+    System.err.printf("usage error: %s needs a whole number from 1 to %d, got \"%s\"%n", prefix, Integer.MAX_VALUE,
+                      value);
+    System.exit(2);
+    return 0; // never reached
+  }
+
+  public static void setRandomSeed(long seed) {
+    random.setSeed(seed);
+  }
 }
\ No newline at end of file
@@ -14,12 +14,15 @@ public class Player extends GameEntity {
   private static final float MOVE_ACCELERATION = 3000, FRICTION = 1500;
   private static final float HIGH_SPEED_FRICTION_MULT = 2f; // increases friction when above the soft speed cap
   private static final float VELOCITY_HARD_CAP_SQ = VELOCITY_HARD_CAP * VELOCITY_HARD_CAP;
+  private static final long WALL_TAG = TagRegistry.mask("wall");
   private float velocitySoftCap = BASE_VELOCITY_SOFT_CAP;
   private float velocitySoftCapSq = velocitySoftCap * velocitySoftCap; // used during updates
 
   /* hp/damage vars */
   public static final int BASE_MAX_HEALTH = 100;
   public int maxHealth = BASE_MAX_HEALTH;
+  // still takes damage, but never goes below 1 hp - used by headless endless runs and benchmarks
+  public boolean invulnerable = false;
 
   /* stamina vars */
   public static final int BASE_MAX_STAMINA = 1000;
@@ -41,8 +44,57 @@ public class Player extends GameEntity {
   private boolean passiveStaminaRegenAllowed = true;
   private boolean staminaPenaltyActive = false;
 
+  // collider shapes, relative to the player's position
+  public static final float[][][] HITBOX_POINTS = {
+      {
+          {-18, -26},
+          {-18,  -5},
+          {-22,  29},
+          {-32,  29},
+          {-40,  17},
+          {-40, -12},
+          {-28, -26}
+      },
+      {
+          { 18, -26},
+          { 18,  -5},
+          { 22,  29},
+          { 32,  29},
+          { 40,  17},
+          { 40, -12},
+          { 28, -26}
+      },
+      {
+          {-18,  -4},
+          {-14,   1},
+          {-16,  19},
+          {-22,  29}
+      },
+      {
+          { 18,  -4},
+          { 14,   1},
+          { 16,  19},
+          { 22,  29}
+      },
+      {
+          {-10,   1},
+          { -4, -11},
+          {  4, -11},
+          { 10,   1}
+      },
+      {
+          {-16,  19},
+          {-14,   1},
+          { 14,   1},
+          { 16,  19}
+      }
+  };
+
   /* internal vars */
   private final ArrayList<Item> items = new ArrayList<>();
+  // reused every update so wall checks don't make garbage
+  private final ArrayList<GameEntity> nearbyWalls = new ArrayList<>();
+  private final PVector wallPush = new PVector();
 
   // briefly prevents the player from shooting after gameplay resumes to prevent issues with sound effects
   public static final float FIRE_LOCKOUT_DURATION = 0.25f;
@@ -52,53 +104,12 @@ public class Player extends GameEntity {
   /* ctor */
   Player(PVector position) {
     super("player"); // initialize tag list
+    renderLayer = LAYER_PLAYER; // always drawn on top of enemies
     this.position = position.copy();
     velocity = new PVector(0, 0);
     // initialize collider
-    colliders = new Collider.Hitbox[]{
-        new Collider.Hitbox(new float[][]{
-            {-18, -26},
-            {-18,  -5},
-            {-22,  29},
-            {-32,  29},
-            {-40,  17},
-            {-40, -12},
-            {-28, -26}
-        }, position),
-        new Collider.Hitbox(new float[][]{
-            { 18, -26},
-            { 18,  -5},
-            { 22,  29},
-            { 32,  29},
-            { 40,  17},
-            { 40, -12},
-            { 28, -26}
-        }, position),
-        new Collider.Hitbox(new float[][]{
-            {-18,  -4},
-            {-14,   1},
-            {-16,  19},
-            {-22,  29}
-        }, position),
-        new Collider.Hitbox(new float[][]{
-            { 18,  -4},
-            { 14,   1},
-            { 16,  19},
-            { 22,  29}
-        }, position),
-        new Collider.Hitbox(new float[][]{
-            {-10,   1},
-            { -4, -11},
-            {  4, -11},
-            { 10,   1}
-        }, position),
-        new Collider.Hitbox(new float[][]{
-            {-16,  19},
-            {-14,   1},
-            { 14,   1},
-            { 16,  19}
-        }, position)
-    };
+    colliders = new Collider.Hitbox[HITBOX_POINTS.length];
+    for (int i = 0; i < HITBOX_POINTS.length; ++i) colliders[i] = new Collider.Hitbox(HITBOX_POINTS[i], position);
     // initialize sprite
     sprite = new Sprite("sprites/player-4x.png")
         .setDisplayAnchor(Sprite.DisplayAnchor.CENTER)
@@ -205,11 +216,15 @@ public class Player extends GameEntity {
 
     setColliderPos(position);
     setColliderAngle(aimDirection + (float)(PI / 2));
+    updateBBox();
 
     // do collision checks
-    for (GameEntity wall : engine.getTagged("wall")) {
-      PVector transVec = new PVector();
-      if (colliding(wall, transVec)) {
+    nearbyWalls.clear();
+    engine.getTaggedInRect(WALL_TAG, bbox, nearbyWalls);
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < nearbyWalls.size(); ++i) {
+      PVector transVec = wallPush.set(0, 0);
+      if (colliding(nearbyWalls.get(i), transVec)) {
         // determine which component of the velocity to 0 out
         if (abs(transVec.x) > abs(transVec.y)) velocity.x = 0;
         else velocity.y = 0;
@@ -238,6 +253,13 @@ public class Player extends GameEntity {
     items.forEach((item) -> item.onKillEnemy(this, enemy));
   }
 
+  /* triggers on-hit and on-kill effects when the player's bullets deal damage */
+  @Override
+  public void runOnDealDamage(GameEntity target, float damage, boolean killed) {
+    doOnHitEffects(damage);
+    if (killed) doOnKillEffects(target);
+  }
+
   /* equips a new weapon */
   public void equipWeapon(Weapon weapon) {
     this.weapon = weapon;
@@ -255,6 +277,7 @@ public class Player extends GameEntity {
   @Override
   public void damage(float dmg) {
     currentHealth -= dmg;
+    if (invulnerable) currentHealth = Math.max(currentHealth, 1);
     if (currentHealth <= 0) {
       Main.playerDead = true;
       SoundManager.play("game over");
@@ -276,9 +299,6 @@ public class Player extends GameEntity {
   }
 
   /* used by items */
-  public void addTag(String tag) {
-    tags.add(tag);
-  }
   public void modVelocitySoftCap(float amount) {
     velocitySoftCap += amount;
     velocitySoftCapSq = velocitySoftCap * velocitySoftCap;
@@ -0,0 +1,234 @@
+import processing.core.PApplet;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static processing.core.PConstants.*;
+
+/* times each part of a frame and shows it in an overlay - turned on with --profile, and --profilecsv=<file> also writes
+ * every frame's timings to a csv file. everything here checks ENABLED first, so when it's off the only cost is reading
+ * a boolean in a few places. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class Profiler {
+  public static boolean ENABLED = false;
+  public static String CSV_PATH = null; // null if frames shouldn't be written to a file
+
+  /* the parts of a frame that are timed - the engine phases are added up across every tick in the frame */
+  public enum Phase {
+    INPUT("input"),
+    HUD_UPDATE("hud update"),
+    ENGINE_UPDATE("engine update"),
+    PATHFINDING("  pathfinding"),
+    THINK("  think"),
+    ENTITY_UPDATE("  entity update"),
+    BULLETS("  bullets"),
+    DEATH_PASS("  deaths/removal"),
+    ENGINE_RENDER("engine render"),
+    HUD_RENDER("hud render");
+
+    private final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+  }
+  private static final Phase[] PHASES = Phase.values();
+
+  private static final int HISTORY_LENGTH = 240; // frames shown in the graph and used for the percentiles
+  private static final float GRAPH_WIDTH = 240, GRAPH_HEIGHT = 80;
+  private static final float GRAPH_MAX_MS = 33.3f; // the top of the graph - anything slower is cut off
+  private static final float OVERLAY_X = 10, OVERLAY_Y = 10, LINE_HEIGHT = 16;
+
+  // timings for the current frame
+  private static long frameStart;
+  private static final long[] phaseStarts = new long[PHASES.length];
+  private static final long[] phaseTimes = new long[PHASES.length];
+  private static final IdentityHashMap<Class<?>, long[]> entityTimes = new IdentityHashMap<>(); // {time, count}
+  private static final LongAdder collisionTests = new LongAdder(); // added to from worker threads too
+  private static long allocationStart;
+
+  // rolling history of the last HISTORY_LENGTH frames
+  private static final float[] frameHistory = new float[HISTORY_LENGTH]; // in milliseconds
+  private static final float[][] phaseHistory = new float[PHASES.length][HISTORY_LENGTH];
+  private static final float[] sortedFrames = new float[HISTORY_LENGTH];
+  private static int historyIndex = 0, historySize = 0;
+  private static long frameNumber = 0;
+  private static long lastCollisionTests, lastAllocated;
+  private static int lastEntities, lastBullets;
+
+  private static com.sun.management.ThreadMXBean threadBean;
+  private static PrintWriter csv;
+
+  /* sets up allocation tracking and the csv file - does nothing if profiling is off */
+  public static void init() {
+    if (!ENABLED) return;
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+      threadBean = bean;
+    }
+    if (CSV_PATH != null) {
+      try {
+        csv = new PrintWriter(new FileWriter(CSV_PATH));
+        csv.println("frame,metric,value");
+      }
+      catch (IOException e) {
+        throw new RuntimeException("Failed to open profiler output file " + CSV_PATH + "!", e);
+      }
+    }
+  }
+
+  /* starts timing a frame */
+  public static void beginFrame() {
+    if (!ENABLED) return;
+    Arrays.fill(phaseTimes, 0);
+    for (long[] times : entityTimes.values()) Arrays.fill(times, 0);
+    collisionTests.reset();
+    if (threadBean != null) allocationStart = threadBean.getCurrentThreadAllocatedBytes();
+    frameStart = System.nanoTime();
+  }
+
+  /* starts timing a phase - phases can be started more than once per frame, and their times are added together */
+  public static void start(Phase phase) {
+    if (!ENABLED) return;
+    phaseStarts[phase.ordinal()] = System.nanoTime();
+  }
+
+  public static void stop(Phase phase) {
+    if (!ENABLED) return;
+    phaseTimes[phase.ordinal()] += System.nanoTime() - phaseStarts[phase.ordinal()];
+  }
+
+  /* adds the time one entity took to update to the total for its class - only called from the update thread */
+  public static void addEntityTime(GameEntity ent, long nanos) {
+    long[] times = entityTimes.computeIfAbsent(ent.getClass(), (cls) -> new long[2]);
+    times[0] += nanos;
+    ++times[1];
+  }
+
+  /* counts a narrowphase collision test - safe to call from any thread */
+  public static void countCollisionTest() {
+    collisionTests.increment();
+  }
+
+  /* finishes timing a frame and saves its results */
+  public static void endFrame(Engine engine) {
+    if (!ENABLED) return;
+    float frameTime = (System.nanoTime() - frameStart) / 1e6f;
+    lastAllocated = (threadBean == null ? -1 : threadBean.getCurrentThreadAllocatedBytes() - allocationStart);
+    lastCollisionTests = collisionTests.sum();
+    lastEntities = engine.getNumEntities();
+    lastBullets = engine.getNumBullets();
+
+    frameHistory[historyIndex] = frameTime;
+    for (int i = 0; i < PHASES.length; ++i) phaseHistory[i][historyIndex] = phaseTimes[i] / 1e6f;
+    historyIndex = (historyIndex + 1) % HISTORY_LENGTH;
+    historySize = Math.min(historySize + 1, HISTORY_LENGTH);
+
+    if (csv != null) writeCsv(frameTime);
+    ++frameNumber;
+  }
+
+  /* draws the overlay in the top left corner of the screen */
+  public static void render(PApplet app) {
+    if (!ENABLED || historySize == 0) return;
+    app.pushStyle();
+    app.textFont(Hud.OLNEY_LIGHT_16);
+    app.textAlign(LEFT, TOP);
+
+    // count the lines first so the background fits around them
+    int numLines = 6 + PHASES.length + entityTimes.size();
+    float height = GRAPH_HEIGHT + 10 + numLines * LINE_HEIGHT + 10;
+    app.noStroke();
+    app.fill(Colors.TRANS_BLACK.getCode());
+    app.rect(OVERLAY_X - 5, OVERLAY_Y - 5, Math.max(GRAPH_WIDTH, 300) + 10, height);
+
+    renderGraph(app);
+
+    // percentiles over the whole history
+    System.arraycopy(frameHistory, 0, sortedFrames, 0, historySize);
+    Arrays.sort(sortedFrames, 0, historySize);
+    float y = OVERLAY_Y + GRAPH_HEIGHT + 10;
+    app.fill(Colors.WHITE.getCode());
+    y = line(app, y, String.format("frame: p50 %.2f ms, p99 %.2f ms, max %.2f ms", percentile(0.5f),
+                                   percentile(0.99f), sortedFrames[historySize - 1]));
+    y = line(app, y, String.format("fps: %.1f", app.frameRate));
+    for (int i = 0; i < PHASES.length; ++i) {
+      y = line(app, y, String.format("%s: %.3f ms", PHASES[i].label, average(phaseHistory[i])));
+    }
+    for (Map.Entry<Class<?>, long[]> entry : entityTimes.entrySet()) {
+      y = line(app, y, String.format("    %s x%d: %.3f ms", entry.getKey().getName(), entry.getValue()[1],
+                                     entry.getValue()[0] / 1e6f));
+    }
+    y = line(app, y, String.format("entities: %d, bullets: %d", lastEntities, lastBullets));
+    y = line(app, y, String.format("collision tests: %d", lastCollisionTests));
+    y = line(app, y, (lastAllocated < 0 ? "allocated: not supported"
+                      : String.format("allocated: %.1f kb (draw thread)", lastAllocated / 1024f)));
+    line(app, y, "phase times are averages over the graph");
+    app.popStyle();
+  }
+
+  /* closes the csv file, if there is one */
+  public static void close() {
+    if (csv != null) {
+      csv.close();
+      csv = null;
+    }
+  }
+
+  /* draws the frame time graph - newest frames are on the right */
+  private static void renderGraph(PApplet app) {
+    float barWidth = GRAPH_WIDTH / HISTORY_LENGTH;
+    float bottom = OVERLAY_Y + GRAPH_HEIGHT;
+    for (int i = 0; i < historySize; ++i) {
+      // oldest first
+      float frameTime = frameHistory[(historyIndex - historySize + i + HISTORY_LENGTH) % HISTORY_LENGTH];
+      float barHeight = Math.min(frameTime / GRAPH_MAX_MS, 1) * GRAPH_HEIGHT;
+      // frames that took longer than 60fps allows are red
+      app.fill(frameTime > 1000f / 60 ? Colors.RED.getCode() : Colors.LIGHT_TEAL.getCode());
+      app.rect(OVERLAY_X + (HISTORY_LENGTH - historySize + i) * barWidth, bottom - barHeight, barWidth, barHeight);
+    }
+    // line at 60fps
+    app.stroke(Colors.WHITE.getCode());
+    float targetY = bottom - (1000f / 60 / GRAPH_MAX_MS) * GRAPH_HEIGHT;
+    app.line(OVERLAY_X, targetY, OVERLAY_X + GRAPH_WIDTH, targetY);
+    app.noStroke();
+  }
+
+  /* writes one frame to the csv file */
+  private static void writeCsv(float frameTime) {
+    csv.printf("%d,frame ms,%.4f%n", frameNumber, frameTime);
+    for (int i = 0; i < PHASES.length; ++i) {
+      csv.printf("%d,%s ms,%.4f%n", frameNumber, PHASES[i].label.trim(), phaseTimes[i] / 1e6f);
+    }
+    for (Map.Entry<Class<?>, long[]> entry : entityTimes.entrySet()) {
+      if (entry.getValue()[1] == 0) continue;
+      csv.printf("%d,%s update ms,%.4f%n", frameNumber, entry.getKey().getName(), entry.getValue()[0] / 1e6f);
+      csv.printf("%d,%s count,%d%n", frameNumber, entry.getKey().getName(), entry.getValue()[1]);
+    }
+    csv.printf("%d,entities,%d%n", frameNumber, lastEntities);
+    csv.printf("%d,bullets,%d%n", frameNumber, lastBullets);
+    csv.printf("%d,collision tests,%d%n", frameNumber, lastCollisionTests);
+    if (lastAllocated >= 0) csv.printf("%d,allocated bytes,%d%n", frameNumber, lastAllocated);
+  }
+
+  private static float line(PApplet app, float y, String text) {
+    app.text(text, OVERLAY_X, y);
+    return y + LINE_HEIGHT;
+  }
+
+  private static float percentile(float percentile) {
+    return sortedFrames[Math.min((int)Math.ceil(percentile * historySize) - 1, historySize - 1)];
+  }
+
+  private static float average(float[] history) {
+    float total = 0;
+    for (int i = 0; i < historySize; ++i) total += history[i]; // the history fills up from the start
+    return total / historySize;
+  }
+}
@@ -3,6 +3,7 @@ import processing.sound.SoundFile;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Map.entry;
 
@@ -18,14 +19,37 @@ public class SoundManager {
   );
 
   private static final Map<String, SoundFile> soundFiles = new HashMap<>();
+  private static boolean silent = false; // used in headless mode, where there's nothing to play sounds through
 
   /* loads all sound effects into soundfiles that can be played */
   public static void init(PApplet app) {
-    filePaths.forEach((k, v) -> soundFiles.put(k, new SoundFile(app, v)));
+    filePaths.keySet().forEach((name) -> load(app, name));
+  }
+
+  /* loads a single sound effect; has to be called on the animation thread, like everything else that uses the app */
+  public static void load(PApplet app, String name) {
+    soundFiles.put(name, new SoundFile(app, filePaths.get(name)));
+  }
+
+  /* makes play() do nothing instead of loading any sounds */
+  public static void initSilent() {
+    silent = true;
+  }
+
+  /* returns the names of every sound effect */
+  public static Set<String> getNames() {
+    return filePaths.keySet();
   }
 
   /* plays a sound effect if it isn't already playing; throws an exception if the effect doesn't exist. */
   public static void play(String name) throws IllegalArgumentException {
+    if (silent) {
+      // still catch typos in headless mode
+      if (!filePaths.containsKey(name)) throw new IllegalArgumentException(String.format(
+          "The sound effect \"%s\" does not exist!", name
+      ));
+      return;
+    }
     if (!soundFiles.containsKey(name)) throw new IllegalArgumentException(String.format(
         "The sound effect \"%s\" does not exist!", name
     ));
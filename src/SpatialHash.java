@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+
+/* uniform grid that buckets entities by their bounding boxes. collision checks can ask it for whatever is near a
+ * rectangle instead of testing against every entity in the engine. anything outside the grid gets clamped into the
+ * cells along its edge, so the grid only needs to cover the area where things actually happen. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class SpatialHash {
+  private final float originX, originY, cellSize;
+  private final int cols, rows;
+  private final ArrayList<GameEntity>[] cells;
+
+  /* ctor, takes the area covered by the grid and the size of each (square) cell */
+  @SuppressWarnings("unchecked") // generic arrays are a pain
+  SpatialHash(float originX, float originY, float width, float height, float cellSize) {
+    this.originX = originX;
+    this.originY = originY;
+    this.cellSize = cellSize;
+    cols = Math.max(1, (int)Math.ceil(width / cellSize));
+    rows = Math.max(1, (int)Math.ceil(height / cellSize));
+    cells = new ArrayList[cols * rows];
+    for (int i = 0; i < cells.length; ++i) cells[i] = new ArrayList<>();
+  }
+
+  /* adds an entity to every cell its bounding box overlaps; entities without colliders are ignored */
+  public void insert(GameEntity ent) {
+    if (!ent.updateBBox()) return;
+    ent.gridMinX = cellX(ent.bbox.x);
+    ent.gridMinY = cellY(ent.bbox.y);
+    ent.gridMaxX = cellX(ent.bbox.x + ent.bbox.w);
+    ent.gridMaxY = cellY(ent.bbox.y + ent.bbox.h);
+    addToCells(ent);
+  }
+
+  /* removes an entity from the grid, does nothing if it isn't in it */
+  public void remove(GameEntity ent) {
+    if (ent.gridMinX < 0) return;
+    removeFromCells(ent);
+    ent.gridMinX = -1;
+  }
+
+  /* moves an entity to the correct cells after it moves - this is cheap if it stayed inside the same cells */
+  public void update(GameEntity ent) {
+    if (!ent.updateBBox()) {
+      remove(ent);
+      return;
+    }
+    int minX = cellX(ent.bbox.x), minY = cellY(ent.bbox.y);
+    int maxX = cellX(ent.bbox.x + ent.bbox.w), maxY = cellY(ent.bbox.y + ent.bbox.h);
+    if (minX == ent.gridMinX && minY == ent.gridMinY && maxX == ent.gridMaxX && maxY == ent.gridMaxY) return;
+
+    if (ent.gridMinX >= 0) removeFromCells(ent);
+    ent.gridMinX = minX;
+    ent.gridMinY = minY;
+    ent.gridMaxX = maxX;
+    ent.gridMaxY = maxY;
+    addToCells(ent);
+  }
+
+  /* removes everything from the grid */
+  public void clear() {
+    for (ArrayList<GameEntity> cell : cells) {
+      for (GameEntity ent : cell) ent.gridMinX = -1;
+      cell.clear();
+    }
+  }
+
+  /* adds every entity with any of the tags in the mask whose bounding box overlaps the rectangle to out, then returns
+   * out. queries don't change anything, so several threads can run them at once as long as nothing is moving. */
+  public ArrayList<GameEntity> query(long tagMask, float x, float y, float w, float h, ArrayList<GameEntity> out) {
+    int minX = cellX(x), minY = cellY(y), maxX = cellX(x + w), maxY = cellY(y + h);
+    for (int cy = minY; cy <= maxY; ++cy) {
+      for (int cx = minX; cx <= maxX; ++cx) {
+        ArrayList<GameEntity> cell = cells[cy * cols + cx];
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < cell.size(); ++i) {
+          GameEntity ent = cell.get(i);
+          // entities that span several cells are only returned from the first cell they share with the query
+          if (cx != Math.max(minX, ent.gridMinX) || cy != Math.max(minY, ent.gridMinY)) continue;
+          if (ent.hasTag(tagMask) && ent.bbox.rectIntersection(x, y, w, h)) out.add(ent);
+        }
+      }
+    }
+    return out;
+  }
+
+  /* converts world coordinates to (clamped) cell coordinates */
+  private int cellX(float x) {
+    return Math.min(Math.max((int)Math.floor((x - originX) / cellSize), 0), cols - 1);
+  }
+
+  private int cellY(float y) {
+    return Math.min(Math.max((int)Math.floor((y - originY) / cellSize), 0), rows - 1);
+  }
+
+  private void addToCells(GameEntity ent) {
+    for (int cy = ent.gridMinY; cy <= ent.gridMaxY; ++cy) {
+      for (int cx = ent.gridMinX; cx <= ent.gridMaxX; ++cx) {
+        cells[cy * cols + cx].add(ent);
+      }
+    }
+  }
+
+  private void removeFromCells(GameEntity ent) {
+    for (int cy = ent.gridMinY; cy <= ent.gridMaxY; ++cy) {
+      for (int cx = ent.gridMinX; cx <= ent.gridMaxX; ++cx) {
+        cells[cy * cols + cx].remove(ent);
+      }
+    }
+  }
+}
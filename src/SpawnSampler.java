@@ -0,0 +1,108 @@
+import processing.core.PVector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/* picks random spawn points that are inside an area, between a minimum and maximum distance from the player, and
+ * away from walls - without trying random points until one works. the area is split into a grid of cells, and every
+ * cell that's entirely valid for wherever the player is in their current cell goes into a list. picking a point is
+ * just picking a random cell from the list and a random point inside it, so it always takes the same (tiny) amount of
+ * time. the list is only rebuilt when the player moves to a different cell or the engine reports that walls were added
+ * or removed. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class SpawnSampler {
+  private final float minX, minY, cellSize;
+  private final int cols, rows;
+  private final float minDistanceSq, maxDistanceSq;
+  private final float wallClearance; // how far spawn points have to be from any wall
+  private final boolean[] blocked; // cells too close to a wall
+  private final int[] validCells;
+  private int numValidCells = 0;
+
+  // what the valid cell list was built for
+  private int cachedPlayerCellX = Integer.MIN_VALUE, cachedPlayerCellY = Integer.MIN_VALUE;
+  private Engine cachedEngine = null;
+  private int cachedWallVersion;
+
+  /* ctor, takes the area spawn points have to be in, the size of each (square) cell, the distances from the player
+   * that spawn points have to be between, and how far they have to be from walls. only cells that fit entirely in the
+   * area are used. */
+  SpawnSampler(float minX, float minY, float maxX, float maxY, float cellSize, float minPlayerDistance,
+               float maxPlayerDistance, float wallClearance) {
+    this.minX = minX;
+    this.minY = minY;
+    this.cellSize = cellSize;
+    cols = Math.max(0, (int)Math.floor((maxX - minX) / cellSize));
+    rows = Math.max(0, (int)Math.floor((maxY - minY) / cellSize));
+    minDistanceSq = minPlayerDistance * minPlayerDistance;
+    maxDistanceSq = maxPlayerDistance * maxPlayerDistance;
+    this.wallClearance = wallClearance;
+    blocked = new boolean[cols * rows];
+    validCells = new int[cols * rows];
+  }
+
+  /* stores a random valid spawn point in out and returns true, or returns false if there aren't any valid points. walls
+   * are the entities with the wall tag in the engine */
+  public boolean sample(PVector playerPos, Engine engine, int wallTagId, PVector out) {
+    int playerCellX = (int)Math.floor((playerPos.x - minX) / cellSize);
+    int playerCellY = (int)Math.floor((playerPos.y - minY) / cellSize);
+    int wallVersion = engine.getTagVersion(wallTagId);
+    if (engine != cachedEngine || wallVersion != cachedWallVersion) {
+      findBlockedCells(engine.getTagged(wallTagId));
+      cachedEngine = engine;
+      cachedWallVersion = wallVersion;
+      cachedPlayerCellX = Integer.MIN_VALUE; // forces the list to be rebuilt
+    }
+    if (playerCellX != cachedPlayerCellX || playerCellY != cachedPlayerCellY) {
+      findValidCells(playerCellX, playerCellY);
+      cachedPlayerCellX = playerCellX;
+      cachedPlayerCellY = playerCellY;
+    }
+
+    if (numValidCells == 0) return false;
+    int cell = validCells[Main.randInt(0, numValidCells)];
+    out.set(minX + (cell % cols + Main.randFloat()) * cellSize, minY + (cell / cols + Main.randFloat()) * cellSize);
+    return true;
+  }
+
+  /* returns how many cells spawn points can currently be picked from */
+  public int getNumValidCells() {
+    return numValidCells;
+  }
+
+  /* lists every cell that isn't blocked and is the right distance from anywhere in the player's cell */
+  private void findValidCells(int playerCellX, int playerCellY) {
+    numValidCells = 0;
+    for (int cy = 0; cy < rows; ++cy) {
+      for (int cx = 0; cx < cols; ++cx) {
+        int cell = cy * cols + cx;
+        if (blocked[cell]) continue;
+        // closest and farthest any point in this cell can be from any point in the player's cell
+        float nearX = Math.max(Math.abs(cx - playerCellX) - 1, 0) * cellSize;
+        float nearY = Math.max(Math.abs(cy - playerCellY) - 1, 0) * cellSize;
+        float farX = (Math.abs(cx - playerCellX) + 1) * cellSize, farY = (Math.abs(cy - playerCellY) + 1) * cellSize;
+        if (nearX * nearX + nearY * nearY >= minDistanceSq && farX * farX + farY * farY <= maxDistanceSq) {
+          validCells[numValidCells++] = cell;
+        }
+      }
+    }
+  }
+
+  /* blocks every cell that comes within the clearance of a wall's bounding box */
+  private void findBlockedCells(List<GameEntity> walls) {
+    Arrays.fill(blocked, false);
+    //noinspection ForLoopReplaceableByForEach
+    for (int i = 0; i < walls.size(); ++i) {
+      GameEntity wall = walls.get(i);
+      if (!wall.updateBBox()) continue;
+      Collider.BoundingRect bbox = wall.bbox;
+      int minCellX = Math.max((int)Math.floor((bbox.x - wallClearance - minX) / cellSize), 0);
+      int minCellY = Math.max((int)Math.floor((bbox.y - wallClearance - minY) / cellSize), 0);
+      int maxCellX = Math.min((int)Math.floor((bbox.x + bbox.w + wallClearance - minX) / cellSize), cols - 1);
+      int maxCellY = Math.min((int)Math.floor((bbox.y + bbox.h + wallClearance - minY) / cellSize), rows - 1);
+      for (int cy = minCellY; cy <= maxCellY; ++cy) {
+        for (int cx = minCellX; cx <= maxCellX; ++cx) blocked[cy * cols + cx] = true;
+      }
+    }
+  }
+}
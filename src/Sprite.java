@@ -2,20 +2,87 @@ import processing.core.PGraphics;
 import processing.core.PImage;
 import processing.core.PVector;
 
+import java.util.HashMap;
+
 /* handles displaying and rotating an image sprite */
 public class Sprite {
   public static Main app;
+  // every image that's been loaded, so sprites that use the same file share one copy instead of each loading it from
+  // disk again (which is slow enough to cause a noticeable stutter when lots of enemies spawn)
+  private static final HashMap<String, CachedImage> imageCache = new HashMap<>();
+  private static EvictionPolicy evictionPolicy = EvictionPolicy.KEEP_LOADED;
+  private static int nextBatchId = 1;
   private final PImage image;
+  private final String imagePath;
+  private final int batchId; // sprites with the same image have the same id, so they can be drawn one after another
+  private boolean released = false;
   private DisplayAnchor displayAnchor = DisplayAnchor.TOP_LEFT;
   private float x, y, xOffset, yOffset, width, height, angle, angleOffset;
 
   /* ctor, takes the path to the image */
   Sprite(String imagePath) {
-    image = app.loadImage(imagePath);
+    this.imagePath = imagePath;
+    CachedImage cached = acquireImage(imagePath);
+    image = cached.image;
+    batchId = cached.batchId;
     width = image.width;
     height = image.height;
   }
 
+  /* image cache stuff */
+  // returns the cached copy of an image, loading it if it hasn't been loaded yet
+  private static synchronized CachedImage acquireImage(String path) {
+    CachedImage cached = imageCache.get(path);
+    if (cached == null) {
+      cached = new CachedImage(loadImage(path));
+      imageCache.put(path, cached);
+    }
+    ++cached.refCount;
+    return cached;
+  }
+
+  // loads an image into the cache ahead of time without creating a sprite for it. the image is loaded outside the
+  // lock so several threads can preload images at the same time
+  public static void preload(String path) {
+    synchronized (Sprite.class) {
+      if (imageCache.containsKey(path)) return;
+    }
+    PImage image = loadImage(path);
+    synchronized (Sprite.class) {
+      imageCache.putIfAbsent(path, new CachedImage(image));
+    }
+  }
+
+  // loads an image from the data folder. in headless mode there's no app to load images with (and nothing to draw them
+  // to), so sprites get a blank placeholder instead
+  private static PImage loadImage(String path) {
+    return (app == null ? new PImage(1, 1) : app.loadImage(path));
+  }
+
+  // tells the cache this sprite isn't being used anymore. depending on the eviction policy, the image may be removed
+  // from the cache once nothing is using it. calling this more than once does nothing.
+  public void release() {
+    if (released) return;
+    released = true;
+    synchronized (Sprite.class) {
+      CachedImage cached = imageCache.get(imagePath);
+      if (cached == null) return;
+      --cached.refCount;
+      if (cached.refCount <= 0 && evictionPolicy == EvictionPolicy.EVICT_UNUSED) imageCache.remove(imagePath);
+    }
+  }
+
+  // sets what happens to cached images once no sprites are using them
+  public static synchronized void setEvictionPolicy(EvictionPolicy policy) {
+    evictionPolicy = policy;
+    if (policy == EvictionPolicy.EVICT_UNUSED) imageCache.values().removeIf((cached) -> cached.refCount <= 0);
+  }
+
+  // returns how many images are currently cached
+  public static synchronized int getNumCachedImages() {
+    return imageCache.size();
+  }
+
   /* builder pattern setters */
   public Sprite setPos(float x, float y) {
     this.x = x;
@@ -94,6 +161,11 @@ public class Sprite {
     return setScale((float)scale);
   }
 
+  /* returns an id shared by every sprite with the same image - the engine draws sprites with the same id together */
+  public int getBatchId() {
+    return batchId;
+  }
+
   /* renders the sprite to the given canvas */
   public void render(PGraphics pg) {
     pg.pushStyle();
@@ -106,6 +178,23 @@ public class Sprite {
     pg.popStyle();
   }
 
+  // a cached image and how many sprites are using it
+  private static class CachedImage {
+    private final PImage image;
+    private final int batchId;
+    private int refCount = 0;
+
+    private CachedImage(PImage image) {
+      this.image = image;
+      batchId = nextBatchId++; // only ever created while holding the cache lock
+    }
+  }
+
+  public enum EvictionPolicy {
+    KEEP_LOADED, // images stay cached forever, even when nothing is using them
+    EVICT_UNUSED // images are removed from the cache as soon as nothing is using them
+  }
+
   public enum DisplayAnchor {
     TOP,
     BOTTOM,
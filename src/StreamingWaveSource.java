@@ -0,0 +1,163 @@
+import processing.data.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/* reads waves from a file in the format of waves.json one at a time, as they're needed, so the whole file never has to
+ * be in memory - memory use only depends on how big the largest single wave is, not on how many waves there are. when
+ * the source is created, the file is read through once to count the waves and check every one of them, so mistakes
+ * still show up right away. after that, the file is kept open and read forward as waves are asked for. waves are almost
+ * always asked for in order, so that's fast - asking for an earlier wave (like when a new run starts) reopens the
+ * file and skips forward to it. */
+@SuppressWarnings("unused") // keeps my ide happy
+public class StreamingWaveSource implements WaveSource {
+  /* opens a new stream at the start of the file every time it's called */
+  interface Opener {
+    InputStream open() throws IOException;
+  }
+
+  private final String name; // used in error messages
+  private final Opener opener;
+  private final int numWaves;
+
+  private Reader reader; // null if the file isn't open
+  private int nextWave; // the wave the reader will read next
+  private final StringBuilder waveText = new StringBuilder(); // reused for every wave
+  private int cachedWaveNum = -1; // the last wave that was read, so asking for it again doesn't reopen the file
+  private WavePlan.Wave cachedWave;
+
+  /* ctor, takes a name for the file (used in error messages) and a way to open it. reads through the whole file once,
+   * throws an IllegalArgumentException if anything in it is invalid */
+  StreamingWaveSource(String name, Opener opener) throws IllegalArgumentException {
+    this.name = name;
+    this.opener = opener;
+
+    open();
+    int count = 0;
+    while (readWaveText()) {
+      WavePlan.Wave.compile(parseWaveText(count), count);
+      ++count;
+    }
+    close();
+    numWaves = count;
+  }
+
+  @Override
+  public int size() {
+    return numWaves;
+  }
+
+  /* not thread-safe, so waves should only be asked for from one thread */
+  @Override
+  public WavePlan.Wave getWave(int waveNum) throws IllegalArgumentException {
+    if (waveNum < 0 || waveNum >= numWaves) {
+      throw new IllegalArgumentException(String.format("Wave %d does not exist!", waveNum));
+    }
+    if (waveNum == cachedWaveNum) return cachedWave;
+
+    if (reader == null || waveNum < nextWave) open(); // start over from the beginning
+    while (nextWave <= waveNum) {
+      if (!readWaveText()) throw new IllegalStateException(String.format("%s changed while it was being read!", name));
+    }
+    cachedWave = WavePlan.Wave.compile(parseWaveText(waveNum), waveNum);
+    cachedWaveNum = waveNum;
+    // nothing after the last wave will be read, so don't leave the file open
+    if (nextWave == numWaves) close();
+    return cachedWave;
+  }
+
+  /* closes the file if it's open - it's reopened automatically if another wave is needed */
+  public void close() {
+    if (reader == null) return;
+    try {
+      reader.close();
+    }
+    catch (IOException ignored) {
+      // nothing useful can be done if closing fails
+    }
+    reader = null;
+  }
+
+  /* opens the file (again, if it was already open) and reads up to the first wave */
+  private void open() {
+    close();
+    try {
+      InputStream input = opener.open();
+      if (input == null) throw new IOException("file not found");
+      reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to open " + name + "!", e);
+    }
+    nextWave = 0;
+    if (readNonWhitespace() != '[') throw new IllegalArgumentException(name + " isn't a json array!");
+  }
+
+  /* reads the next wave's json object into waveText and returns true, or returns false if there are no waves left. this
+   * only finds where the object starts and ends - it's parsed and checked separately. */
+  private boolean readWaveText() {
+    waveText.setLength(0);
+    int c = readNonWhitespace();
+    if (c == ']') return false; // the end of the array
+    if (c == -1) throw new IllegalArgumentException(String.format("%s ends before the array is closed!", name));
+    // every wave after the first one comes after a comma
+    if (nextWave > 0) {
+      if (c != ',') throw new IllegalArgumentException(String.format("Missing comma after wave %d in %s!", nextWave - 1,
+                                                                     name));
+      c = readNonWhitespace();
+      if (c == ']') throw new IllegalArgumentException(String.format("%s has a trailing comma!", name));
+    }
+    if (c != '{') throw new IllegalArgumentException(String.format("Wave %d in %s isn't an object!", nextWave, name));
+
+    // copy characters until the object's closing bracket, skipping over brackets inside strings
+    int depth = 0;
+    boolean inString = false, escaped = false;
+    while (true) {
+      waveText.append((char)c);
+      if (inString) {
+        if (escaped) escaped = false;
+        else if (c == '\\') escaped = true;
+        else if (c == '"') inString = false;
+      }
+      else if (c == '"') inString = true;
+      else if (c == '{' || c == '[') ++depth;
+      else if ((c == '}' || c == ']') && --depth == 0) break;
+      c = read();
+      if (c == -1) throw new IllegalArgumentException(String.format("Wave %d in %s is cut off!", nextWave, name));
+    }
+    ++nextWave;
+    return true;
+  }
+
+  /* parses the text read by readWaveText() */
+  private JSONObject parseWaveText(int waveNum) throws IllegalArgumentException {
+    try {
+      return JSONObject.parse(waveText.toString());
+    }
+    catch (RuntimeException e) {
+      throw new IllegalArgumentException(String.format("Wave %d in %s isn't valid json!", waveNum, name), e);
+    }
+  }
+
+  /* returns the next character that isn't whitespace, or -1 at the end of the file */
+  private int readNonWhitespace() {
+    int c;
+    do {
+      c = read();
+    } while (c != -1 && Character.isWhitespace(c));
+    return c;
+  }
+
+  private int read() {
+    try {
+      return reader.read();
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Failed to read " + name + "!", e);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/* turns tag strings into small integer ids. every entity stores its tags as bits in a single long, so checking for
+ * a tag (or several tags at once) is just an AND instead of a bunch of string comparisons. */
+@SuppressWarnings("unused") // keeps my ide happy
+public final class TagRegistry {
+  public static final int MAX_TAGS = Long.SIZE; // one bit per tag
+  // both are replaced with new copies whenever a tag is registered rather than changed, so looking tags up never has to
+  // lock - entities think on several threads at once. registering is rare (a few dozen times, ever), so copying is fine
+  private static volatile Map<String, Integer> ids = Map.of();
+  private static volatile String[] names = new String[0];
+
+  private TagRegistry() {}
+
+  /* returns the id for a tag, registering it if it's new. throws an IllegalStateException if there are too many tags
+   * to fit in a long */
+  public static int id(String tag) throws IllegalStateException {
+    Integer id = ids.get(tag);
+    return id != null ? id : register(tag);
+  }
+
+  /* returns the id for a tag without registering it, or -1 if no entity has ever had it */
+  public static int find(String tag) {
+    Integer id = ids.get(tag);
+    return id == null ? -1 : id;
+  }
+
+  /* returns a mask with only the bit for a tag set */
+  public static long mask(String tag) {
+    return 1L << id(tag);
+  }
+
+  /* returns a mask with the bits for all the tags set */
+  public static long mask(String... tags) {
+    long mask = 0;
+    for (String tag : tags) mask |= mask(tag);
+    return mask;
+  }
+
+  /* returns the name of the tag with an id */
+  public static String name(int id) {
+    return names[id];
+  }
+
+  /* adds a new tag - only one thread can register at a time, and it checks again in case another thread registered the
+   * same tag while it was waiting */
+  private static synchronized int register(String tag) throws IllegalStateException {
+    Integer existing = ids.get(tag);
+    if (existing != null) return existing;
+
+    if (names.length == MAX_TAGS) {
+      throw new IllegalStateException(String.format(
+          "Can't register tag \"%s\": there can only be %d different tags!", tag, MAX_TAGS
+      ));
+    }
+    int id = names.length;
+    String[] newNames = Arrays.copyOf(names, id + 1);
+    newNames[id] = tag;
+    HashMap<String, Integer> newIds = new HashMap<>(ids);
+    newIds.put(tag, id);
+    // names goes first, so anything that can see the new id can also look up its name
+    names = newNames;
+    ids = newIds;
+    return id;
+  }
+}
@@ -1,9 +1,9 @@
 import processing.core.PGraphics;
 import processing.core.PVector;
 
-import java.util.Objects;
-
 import static java.lang.Math.atan2;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
 import static processing.core.PConstants.PI;
 
 /* a stationary enemy that shoots bullets at the player */
@@ -13,63 +13,83 @@ public class TurretEnemy extends EnemySuper {
   private static final int SHOTS_PER_BURST = 4;
   private static final int BULLET_VELOCITY = 750;
   private static final float BULLET_DAMAGE = 20;
+  private static final int MAX_HEALTH = 150;
+
+  // the four corner posts and the octagonal base
+  public static final float[][][] HITBOX_POINTS = {
+      {
+          {-42,    -50},
+          {-32,    -50},
+          {-19.5f, -37.5f},
+          {-37.5f, -19.5f},
+          {-50,    -32},
+          {-50,    -42}
+      },
+      {
+          {42,    -50},
+          {32,    -50},
+          {19.5f, -37.5f},
+          {37.5f, -19.5f},
+          {50,    -32},
+          {50,    -42}
+      },
+      {
+          {-42,    50},
+          {-32,    50},
+          {-19.5f, 37.5f},
+          {-37.5f, 19.5f},
+          {-50,    32},
+          {-50,    42}
+      },
+      {
+          {42,    50},
+          {32,    50},
+          {19.5f, 37.5f},
+          {37.5f, 19.5f},
+          {50,    32},
+          {50,    42}
+      },
+      {
+          {-37.5f, -19.5f},
+          {-19.5f, -37.5f},
+          { 19.5f, -37.5f},
+          { 37.5f, -19.5f},
+          { 37.5f,  19.5f},
+          { 19.5f,  37.5f},
+          {-19.5f,  37.5f},
+          {-37.5f,  19.5f}
+      }
+  };
 
-  private PVector bulletSpawnPoint = new PVector();
+  private final PVector bulletSpawnPoint = new PVector();
   private float angle = 0;
   private int shotsRemaining = SHOTS_PER_BURST; // how many shots are left in the current burst
   private float shotCooldown = BURST_DELAY;
 
   TurretEnemy(PVector position) {
-    currentHealth = 150;
     this.position = position.copy();
     this.sprite = new Sprite("sprites/turret-base.png")
         .setDisplayAnchor(Sprite.DisplayAnchor.CENTER)
         .setPos(position);
-    this.colliders = new Collider.Hitbox[]{
-        new Collider.Hitbox(new float[][]{
-            {-42,    -50},
-            {-32,    -50},
-            {-19.5f, -37.5f},
-            {-37.5f, -19.5f},
-            {-50,    -32},
-            {-50,    -42}
-        }),
-        new Collider.Hitbox(new float[][]{
-            {42,    -50},
-            {32,    -50},
-            {19.5f, -37.5f},
-            {37.5f, -19.5f},
-            {50,    -32},
-            {50,    -42}
-        }),
-        new Collider.Hitbox(new float[][]{
-            {-42,    50},
-            {-32,    50},
-            {-19.5f, 37.5f},
-            {-37.5f, 19.5f},
-            {-50,    32},
-            {-50,    42}
-        }),
-        new Collider.Hitbox(new float[][]{
-            {42,    50},
-            {32,    50},
-            {19.5f, 37.5f},
-            {37.5f, 19.5f},
-            {50,    32},
-            {50,    42}
-        }),
-        new Collider.Hitbox(new float[][]{
-            {-37.5f, -19.5f},
-            {-19.5f, -37.5f},
-            { 19.5f, -37.5f},
-            { 37.5f, -19.5f},
-            { 37.5f,  19.5f},
-            { 19.5f,  37.5f},
-            {-19.5f,  37.5f},
-            {-37.5f,  19.5f}
-        })
-    };
+    this.colliders = new Collider.Hitbox[HITBOX_POINTS.length];
+    for (int i = 0; i < HITBOX_POINTS.length; ++i) colliders[i] = new Collider.Hitbox(HITBOX_POINTS[i]);
+    spawnAt(position);
+  }
+
+  /* resets everything that changes while the enemy is alive - used by the ctor and when the enemy is reused */
+  private void spawnAt(PVector position) {
+    currentHealth = MAX_HEALTH;
+    this.position.set(position);
     setColliderPos(position);
+    sprite.setPos(position);
+    angle = 0;
+    shotsRemaining = SHOTS_PER_BURST;
+    shotCooldown = BURST_DELAY;
+  }
+
+  @Override
+  public void runOnReuse(PVector position) {
+    spawnAt(position);
   }
 
   @Override
@@ -92,12 +112,15 @@ public class TurretEnemy extends EnemySuper {
     }
   }
 
+  /* aims at the player - this runs in parallel with other entities */
   @Override
-  public void update(float dt) {
-    // aim at the player
-    angle = (float)atan2(Objects.requireNonNull(Main.player.get()).position.y - position.y,
-                         Objects.requireNonNull(Main.player.get()).position.x - position.x);
+  public void think(float dt) {
+    PVector playerPos = engine.getPlayerPosition();
+    angle = (float)atan2(playerPos.y - position.y, playerPos.x - position.x);
+  }
 
+  @Override
+  public void update(float dt) {
     // if shots are on cooldown, update the timer
     if (shotCooldown > 0) {
       shotCooldown -= dt;
@@ -114,18 +137,18 @@ public class TurretEnemy extends EnemySuper {
       --shotsRemaining;
 
       // update bullet spawn point - this is only done when firing since it's a relatively expensive operation
-      bulletSpawnPoint = PVector.fromAngle(angle);
-      bulletSpawnPoint.mult(50);
-      bulletSpawnPoint.add(position);
-
-      // create a velocity vector and spawn a bullet
-      PVector bulletVelocity = PVector.fromAngle(angle);
-      bulletVelocity.mult(BULLET_VELOCITY);
+      float cosAngle = (float)cos(angle), sinAngle = (float)sin(angle);
+      bulletSpawnPoint.set(position.x + cosAngle * 50, position.y + sinAngle * 50);
 
-      engine.addEntity(new Bullet(bulletSpawnPoint, bulletVelocity, BULLET_DAMAGE, false));
+      // spawn a bullet moving away from the turret
+      engine.spawnBullet(bulletSpawnPoint.x, bulletSpawnPoint.y, cosAngle * BULLET_VELOCITY, sinAngle * BULLET_VELOCITY,
+                         BULLET_DAMAGE, false);
     }
   }
 
   @Override
-  public void runOnDeath() { EnemyManager.EnemyType.TURRET.removeEnemy(); }
+  public void runOnDeath() {
+    if (enemyManager != null) enemyManager.removeEnemy(EnemyManager.EnemyType.TURRET);
+    enemyManager = null;
+  }
 }
\ No newline at end of file
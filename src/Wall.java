@@ -7,7 +7,7 @@ public class Wall extends GameEntity {
 
   /* ctor */
   Wall(float x, float y, float w, float h) {
-    super("wall"); // initialize tag list
+    super("wall", "static"); // initialize tag list - walls never move, so they're baked into the background
 
     this.x = x;
     this.y = y;
@@ -0,0 +1,115 @@
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+/* every wave in a run, compiled from the wave json once when it's loaded. the json is checked while it's compiled, so
+ * mistakes in it show up right away instead of when the wave with the mistake starts, and nothing has to be looked up
+ * by name while the game is running. plans can't be changed once they're built, so any number of enemy managers can
+ * share one. */
+@SuppressWarnings("unused") // keeps my ide happy
+public final class WavePlan implements WaveSource {
+  private static final EnemyManager.EnemyType[] ENEMY_TYPES = EnemyManager.EnemyType.values();
+
+  private final Wave[] waves;
+
+  /* ctor, takes the waves in order - the array is copied */
+  WavePlan(Wave[] waves) {
+    this.waves = waves.clone();
+  }
+
+  /* compiles json in the format of waves.json, throws an IllegalArgumentException if anything in it is invalid */
+  public static WavePlan compile(JSONArray allWaveData) throws IllegalArgumentException {
+    Wave[] waves = new Wave[allWaveData.size()];
+    for (int i = 0; i < waves.length; ++i) waves[i] = Wave.compile(allWaveData.getJSONObject(i), i);
+    return new WavePlan(waves);
+  }
+
+  @Override
+  public int size() {
+    return waves.length;
+  }
+
+  @Override
+  public Wave getWave(int waveNum) throws IllegalArgumentException {
+    if (waveNum < 0 || waveNum >= waves.length) {
+      throw new IllegalArgumentException(String.format("Wave %d does not exist!", waveNum));
+    }
+    return waves[waveNum];
+  }
+
+  /* how many of each enemy type are in a wave, and how many can be active at once */
+  public static final class Wave {
+    // indexed by EnemyType.ordinal()
+    private final int[] totals;
+    private final int[] maxActive;
+
+    /* ctor, takes the totals and max actives for every enemy type - the arrays are copied */
+    Wave(int[] totals, int[] maxActive) throws IllegalArgumentException {
+      if (totals.length != ENEMY_TYPES.length || maxActive.length != ENEMY_TYPES.length) {
+        throw new IllegalArgumentException("Waves need a total and max active for every enemy type!");
+      }
+      this.totals = totals.clone();
+      this.maxActive = maxActive.clone();
+    }
+
+    /* compiles one wave's json object. keys that aren't enemy names are ignored, so waves can carry extra data (like
+     * the benchmark scenarios' names) */
+    static Wave compile(JSONObject waveData, int waveNum) throws IllegalArgumentException {
+      int[] totals = new int[ENEMY_TYPES.length];
+      int[] maxActive = new int[ENEMY_TYPES.length];
+      for (EnemyManager.EnemyType enemyType : ENEMY_TYPES) {
+        String name = enemyType.getName();
+        if (!waveData.hasKey(name)) continue;
+        int i = enemyType.ordinal();
+        JSONObject enemyData;
+        try {
+          enemyData = waveData.getJSONObject(name);
+        }
+        catch (RuntimeException e) {
+          // processing throws plain RuntimeExceptions for values of the wrong type
+          throw new IllegalArgumentException(String.format("Wave %d has invalid %s data!", waveNum, name), e);
+        }
+        totals[i] = getCount(enemyData, "total", waveNum, name);
+        maxActive[i] = getCount(enemyData, "max active", waveNum, name);
+        // a wave with enemies that can never be active would never end
+        if (totals[i] > 0 && maxActive[i] == 0) {
+          throw new IllegalArgumentException(String.format("Wave %d has %d of %s but a max active of 0!", waveNum,
+                                                           totals[i], name));
+        }
+      }
+      return new Wave(totals, maxActive);
+    }
+
+    private static int getCount(JSONObject enemyData, String key, int waveNum, String name) {
+      if (enemyData == null || !enemyData.hasKey(key)) {
+        throw new IllegalArgumentException(String.format("Wave %d is missing \"%s\" for %s!", waveNum, key, name));
+      }
+      int count;
+      try {
+        count = enemyData.getInt(key);
+      }
+      catch (RuntimeException e) {
+        throw new IllegalArgumentException(String.format("Wave %d has a non-integer \"%s\" for %s!", waveNum, key,
+                                                         name), e);
+      }
+      if (count < 0) {
+        throw new IllegalArgumentException(String.format("Wave %d has a negative \"%s\" for %s!", waveNum, key, name));
+      }
+      return count;
+    }
+
+    public int getTotal(EnemyManager.EnemyType enemyType) {
+      return totals[enemyType.ordinal()];
+    }
+
+    public int getMaxActive(EnemyManager.EnemyType enemyType) {
+      return maxActive[enemyType.ordinal()];
+    }
+
+    /* returns how many enemies of every type are in the wave */
+    public int getTotalEnemies() {
+      int total = 0;
+      for (int count : totals) total += count;
+      return total;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+/* somewhere waves come from - either compiled all at once and kept in memory (WavePlan), or read from a file as
+ * they're needed (StreamingWaveSource). enemy managers only ever ask for one wave at a time. */
+public interface WaveSource {
+  /* returns how many waves there are */
+  int size();
+
+  /* returns a wave, throws an IllegalArgumentException if the wave at that number doesn't exist */
+  WavePlan.Wave getWave(int waveNum) throws IllegalArgumentException;
+}
@@ -151,9 +151,10 @@ public enum Weapon {
   /* fires bullets */
   private void fireShot() {
     for (int i = 0; i < bulletsPerShot; ++i) {
-      float fireAngle = Objects.requireNonNull(player.get()).aimDirection + (float)(random() * spreadRange) - halfSpreadRange;
-      PVector velocity = PVector.mult(PVector.fromAngle(fireAngle), muzzleVelocity);
-      Main.engine.addEntity(new Bullet(Objects.requireNonNull(player.get()).position, velocity, damagePerShot, true));
+      float fireAngle = Objects.requireNonNull(player.get()).aimDirection + Main.randFloat() * spreadRange - halfSpreadRange;
+      PVector position = Objects.requireNonNull(player.get()).position;
+      Main.engine.spawnBullet(position.x, position.y, (float)cos(fireAngle) * muzzleVelocity,
+                              (float)sin(fireAngle) * muzzleVelocity, damagePerShot, true);
       // if the weapon has recoil, apply it to the player
       if (recoilImpulse != 0) {
         PVector impulse = PVector.mult(PVector.fromAngle(fireAngle), -recoilImpulse);